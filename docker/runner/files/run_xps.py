@@ -24,10 +24,15 @@ import yaml
 
 
 def run_project():
+    run_revisions([xp_codename], xp_codename)
+
+
+def run_revisions(codenames, project_name):
+    # Several revisions are analysed one after the other by the same symfinder run
     build = str(xp_config.get("buildImage", ""))
-    sources_package = os.path.join(xp_codename, xp_config["sourcePackage"])
-    graph_output_path = "generated_visualizations/data/{}.json".format(xp_codename)
-    os.system("bash rerun.sh {} {} {} {}".format(sources_package, graph_output_path, xp_codename, build))
+    sources_packages = " ".join(os.path.join(codename, xp_config["sourcePackage"]) for codename in codenames)
+    graph_output_paths = " ".join("generated_visualizations/data/{}.json".format(codename) for codename in codenames)
+    os.system("bash rerun.sh \"{}\" \"{}\" {} {}".format(sources_packages, graph_output_paths, project_name, build))
 
 
 with open('symfinder.yaml', 'r') as config_file:
@@ -40,6 +45,10 @@ with open('symfinder.yaml', 'r') as config_file:
                 if "repositoryUrl" not in xp_config:
                     xp_codename = xp_name
                     run_project()
-                for id in xp_config.get("tagIds", []) + xp_config.get("commitIds", []):
-                    xp_codename = xp_name + "-" + str(id).replace("/", "_")
-                    run_project()
+                ids = xp_config.get("tagIds", []) + xp_config.get("commitIds", [])
+                if data.get("incrementalRevisions", False) and ids:
+                    run_revisions([xp_name + "-" + str(id).replace("/", "_") for id in ids], xp_name)
+                else:
+                    for id in ids:
+                        xp_codename = xp_name + "-" + str(id).replace("/", "_")
+                        run_project()
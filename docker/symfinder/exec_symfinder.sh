@@ -22,6 +22,14 @@
 
 set -e
 
-java -jar /symfinder.jar /resources/"$1" "$2"
+# SOURCES_PACKAGE and GRAPH_OUTPUT_PATH contain one path per revision to analyse, separated by spaces
+set -- $GRAPH_OUTPUT_PATH
+ARGS=""
+for SOURCES in $SOURCES_PACKAGE; do
+    ARGS="$ARGS /resources/$SOURCES $1"
+    shift
+done
+
+java -jar /symfinder.jar $ARGS
 
 chown -R $SYMFINDER_UID:$SYMFINDER_GID /generated_visualizations
\ No newline at end of file
@@ -19,14 +19,27 @@
  * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
  */
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class Main {
 
     public static void main(String[] args) {
+        if (args.length == 0 || args.length % 2 != 0) {
+            System.err.println("Usage: Main SOURCE_PACKAGE GRAPH_OUTPUT_PATH [SOURCE_PACKAGE GRAPH_OUTPUT_PATH]...");
+            System.exit(1);
+        }
         System.setProperty("logfilename", Optional.ofNullable(System.getenv("PROJECT_NAME")).orElse("debug.log"));
         try {
-            new Symfinder(args[0], args[1]).run();
+            // The arguments are pairs of source package and graph output path, one per revision to analyse
+            List <String> sourcePackages = new ArrayList <>();
+            List <String> graphOutputPaths = new ArrayList <>();
+            for (int i = 0 ; i < args.length ; i += 2) {
+                sourcePackages.add(args[i]);
+                graphOutputPaths.add(args[i + 1]);
+            }
+            new Symfinder(sourcePackages, graphOutputPaths).run();
         } catch (Exception e) {
             e.printStackTrace();
         }
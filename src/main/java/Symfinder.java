@@ -20,52 +20,98 @@
  */
 
 import configuration.Configuration;
+import facts.FactsCache;
+import facts.FileFacts;
+import neograph.EmbeddedNeo4j;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
 import neograph.NeoGraph;
+import neograph.UnitOfWork;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTParser;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.CompilationUnit;
+import parsing.CompilationUnitStore;
+import parsing.SourceParser;
 import visitors.ClassesVisitor;
 import visitors.FactoryVisitor;
 import visitors.GraphBuilderVisitor;
+import visitors.PatternDetectionVisitor;
 import visitors.StrategyTemplateDecoratorVisitor;
+import visitors.SymfinderVisitor;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-/**
- * Inspired by https://www.programcreek.com/2014/01/how-to-resolve-bindings-when-using-eclipse-jdt-astparser/
- */
 public class Symfinder {
 
     private static final Logger logger = LogManager.getLogger(Symfinder.class);
 
-    private NeoGraph neoGraph;
-    private String sourcePackage;
-    private String graphOutputPath;
+    private GraphStore graph;
+    private List <String> sourcePackages;
+    private List <String> graphOutputPaths;
+    private FactsCache factsCache;
+    private EmbeddedNeo4j embeddedNeo4j;
 
     public Symfinder(String sourcePackage, String graphOutputPath) {
-        this.sourcePackage = sourcePackage;
-        this.graphOutputPath = graphOutputPath;
-        this.neoGraph = new
-                NeoGraph(Configuration.getNeo4JBoltAddress(),
-                Configuration.getNeo4JUser(),
-                Configuration.getNeo4JPassword());
+        this(Collections.singletonList(sourcePackage), Collections.singletonList(graphOutputPath));
+    }
+
+    /**
+     * Analyses several revisions of a project one after the other.
+     * The facts of the files left unchanged since the previous revision are reused instead of parsing the files again,
+     * and the graph is then rebuilt from the facts of the revision.
+     * The graphs of the revisions are built in memory, whatever the store configured,
+     * only the graph of the last revision being exported to Neo4j.
+     *
+     * @param sourcePackages   source package of each revision
+     * @param graphOutputPaths path of the graph file written for each revision
+     */
+    public Symfinder(List <String> sourcePackages, List <String> graphOutputPaths) {
+        this.sourcePackages = sourcePackages;
+        this.graphOutputPaths = graphOutputPaths;
+        if (sourcePackages.size() > 1 && ! Configuration.isInMemoryGraph()) {
+            logger.warn("The graphs of the " + sourcePackages.size() + " revisions are built in memory instead of the configured store" +
+                    (Configuration.isGraphExportedToNeo4j() ? ", only the graph of the last revision being exported to Neo4j" : ""));
+        }
+        this.graph = Configuration.isInMemoryGraph() || sourcePackages.size() > 1 ? new InMemoryGraph() : createNeoGraph();
+    }
+
+    private NeoGraph createNeoGraph() {
+        NeoGraph neoGraph = Configuration.isNeo4JEmbedded() ?
+                new NeoGraph(getEmbeddedNeo4j().newDriver(), Configuration.getNeo4JWriteBatchSize()) :
+                new NeoGraph(Configuration.getNeo4JBoltAddress(),
+                        Configuration.getNeo4JUser(),
+                        Configuration.getNeo4JPassword(),
+                        Configuration.getNeo4JWriteBatchSize());
+        neoGraph.setCommitInterval(Configuration.getNeo4JCommitInterval());
+        neoGraph.setNodeCacheSize(Configuration.getNeo4JNodeCacheSize());
+        return neoGraph;
+    }
+
+    /**
+     * Starts the embedded database the first time a graph is created on it.
+     */
+    private EmbeddedNeo4j getEmbeddedNeo4j() {
+        if (embeddedNeo4j == null) {
+            try {
+                embeddedNeo4j = new EmbeddedNeo4j(Configuration.getNeo4JStoreDirectory());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (NoClassDefFoundError e) {
+                throw new IllegalStateException("The embedded mode needs the Neo4j database in the classpath, build symfinder with the embedded-neo4j profile", e);
+            }
+        }
+        return embeddedNeo4j;
     }
 
     public void run() throws IOException {
@@ -77,6 +123,25 @@ public class Symfinder {
             classpathPath = "/usr/lib/jvm/java-8-openjdk";
         }
 
+        if (sourcePackages.size() > 1 || Configuration.getFactsCacheDirectory() != null || Configuration.areFactsExtractedFirst()) {
+            factsCache = new FactsCache(Configuration.getFactsCacheDirectory(), classpathPath);
+        }
+        for (int i = 0 ; i < sourcePackages.size() ; i++) {
+            if (i > 0) {
+                graph.deleteGraph();
+            }
+            if (sourcePackages.size() > 1) {
+                logger.log(Level.getLevel("MY_LEVEL"), "Revision " + (i + 1) + "/" + sourcePackages.size() + ": " + sourcePackages.get(i));
+            }
+            analyse(classpathPath, sourcePackages.get(i), graphOutputPaths.get(i), i == sourcePackages.size() - 1);
+        }
+        graph.close();
+        if (embeddedNeo4j != null) {
+            embeddedNeo4j.close();
+        }
+    }
+
+    private void analyse(String classpathPath, String sourcePackage, String graphOutputPath, boolean isLastRevision) throws IOException {
         List <File> files = Files.walk(Paths.get(sourcePackage))
                 .filter(Files::isRegularFile)
                 .filter(path -> ! isTestPath(path))
@@ -84,62 +149,126 @@ public class Symfinder {
                 .filter(file -> file.getName().endsWith(".java"))
                 .collect(Collectors.toList());
 
-        neoGraph.createClassesIndex();
-        neoGraph.createInterfacesIndex();
-
-        logger.log(Level.getLevel("MY_LEVEL"), "ClassesVisitor");
-        visitPackage(classpathPath, files, new ClassesVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "GraphBuilderVisitor");
-        visitPackage(classpathPath, files, new GraphBuilderVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "StrategyTemplateVisitor");
-        visitPackage(classpathPath, files, new StrategyTemplateDecoratorVisitor(neoGraph));
-        logger.log(Level.getLevel("MY_LEVEL"), "FactoryVisitor");
-        visitPackage(classpathPath, files, new FactoryVisitor(neoGraph));
-
-        neoGraph.detectVPsAndVariants();
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of VPs: " + neoGraph.getTotalNbVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods VPs: " + neoGraph.getNbMethodVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors VPs: " + neoGraph.getNbConstructorVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level VPs: " + neoGraph.getNbMethodLevelVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level VPs: " + neoGraph.getNbClassLevelVPs());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of variants: " + neoGraph.getTotalNbVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of methods variants: " + neoGraph.getNbMethodVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors variants: " + neoGraph.getNbConstructorVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of method level variants: " + neoGraph.getNbMethodLevelVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of class level variants: " + neoGraph.getNbClassLevelVariants());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of nodes: " + neoGraph.getNbNodes());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of relationships: " + neoGraph.getNbRelationships());
-        logger.log(Level.getLevel("MY_LEVEL"), "Number of corrected inheritance relationships: " + GraphBuilderVisitor.getNbCorrectedInheritanceLinks() + "/" + neoGraph.getNbInheritanceRelationships());
-        neoGraph.writeVPGraphFile(graphOutputPath);
-        neoGraph.writeStatisticsFile(graphOutputPath.replace(".json", "-stats.json"));
-        logger.debug(neoGraph.generateStatisticsJson());
-        neoGraph.closeDriver();
-    }
+        if (graph instanceof NeoGraph) {
+            ((NeoGraph) graph).createClassesIndex();
+            ((NeoGraph) graph).createInterfacesIndex();
+            ((NeoGraph) graph).createTypesIndex();
+        }
 
-    private void visitPackage(String classpathPath, List <File> files, ASTVisitor visitor) throws IOException {
-        long startTime = System.currentTimeMillis();
-        for (File file : files) {
-            String fileContent = getFileLines(file);
+        ClassesVisitor classesVisitor = new ClassesVisitor(graph, Configuration.areOverloadsCountedWhileVisiting());
+        GraphBuilderVisitor graphBuilderVisitor = new GraphBuilderVisitor(graph);
+        if (factsCache != null) {
+            visitFacts(classpathPath, files, classesVisitor, graphBuilderVisitor);
+        } else {
+            visitCompilationUnits(classpathPath, files, classesVisitor, graphBuilderVisitor);
+        }
+        if (graph instanceof NeoGraph) {
+            logger.log(Level.getLevel("MY_LEVEL"), "Node cache hits: " + ((NeoGraph) graph).getNodeCacheHits() + ", misses: " + ((NeoGraph) graph).getNodeCacheMisses());
+        }
 
-            ASTParser parser = ASTParser.newParser(AST.JLS8);
-            parser.setResolveBindings(true);
-            parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+            if (Configuration.areOverloadsCountedWhileVisiting()) {
+                graph.detectVPsAndVariants(classesVisitor.getOverloads());
+            } else {
+                graph.detectVPsAndVariants();
+            }
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of VPs: " + graph.getTotalNbVPs());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of methods VPs: " + graph.getNbMethodVPs());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors VPs: " + graph.getNbConstructorVPs());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of method level VPs: " + graph.getNbMethodLevelVPs());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of class level VPs: " + graph.getNbClassLevelVPs());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of variants: " + graph.getTotalNbVariants());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of methods variants: " + graph.getNbMethodVariants());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of constructors variants: " + graph.getNbConstructorVariants());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of method level variants: " + graph.getNbMethodLevelVariants());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of class level variants: " + graph.getNbClassLevelVariants());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of nodes: " + graph.getNbNodes());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of relationships: " + graph.getNbRelationships());
+            logger.log(Level.getLevel("MY_LEVEL"), "Number of corrected inheritance relationships: " + graphBuilderVisitor.getNbCorrectedInheritanceLinks() + "/" + graph.getNbInheritanceRelationships());
+            graph.writeVPGraphFile(Configuration.isGraphOutputCompressed() ? graphOutputPath + ".gz" : graphOutputPath);
+            graph.writeStatisticsFile(graphOutputPath.replace(".json", "-stats.json"));
+            logger.debug(graph.generateStatisticsJson());
+        }
+        if (graph instanceof InMemoryGraph && isLastRevision && Configuration.isGraphExportedToNeo4j()) {
+            exportToNeo4j((InMemoryGraph) graph);
+        }
+    }
 
-            parser.setBindingsRecovery(true);
+    private void visitCompilationUnits(String classpathPath, List <File> files, ClassesVisitor classesVisitor, GraphBuilderVisitor graphBuilderVisitor) throws IOException {
+        try (CompilationUnitStore compilationUnits = new CompilationUnitStore(new SourceParser(classpathPath, Configuration.getSourceEncoding()), files, Configuration.getBatchSize(), Configuration.getMaxRetainedUnits(), Configuration.getSpillDirectory(), Configuration.getParsingThreads())) {
+            logger.log(Level.getLevel("MY_LEVEL"), "ClassesVisitor");
+            visitPackage(compilationUnits, files, classesVisitor, false);
+            logger.log(Level.getLevel("MY_LEVEL"), "Compilation units kept in memory: " + compilationUnits.getNbRetainedUnits() + ", spilled to disk: " + compilationUnits.getNbSpilledUnits());
+            logger.log(Level.getLevel("MY_LEVEL"), "GraphBuilderVisitor");
+            visitPackage(compilationUnits, files, graphBuilderVisitor, true);
+            logger.log(Level.getLevel("MY_LEVEL"), "PatternDetectionVisitor");
+            visitPackage(compilationUnits, files, createPatternDetectionVisitor(), true);
+        }
+    }
 
-            parser.setCompilerOptions(JavaCore.getOptions());
+    /**
+     * Runs the visitors on the facts of the files, taken from the facts cache when the files did not change since they were cached.
+     */
+    private void visitFacts(String classpathPath, List <File> files, ClassesVisitor classesVisitor, GraphBuilderVisitor graphBuilderVisitor) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Collection <FileFacts> facts = factsCache.getFacts(files, new SourceParser(classpathPath, Configuration.getSourceEncoding()), Configuration.getParsingThreads()).values();
+        logger.printf(Level.getLevel("MY_LEVEL"), "Facts loading time: %s", formatExecutionTime(System.currentTimeMillis() - startTime));
+        logger.log(Level.getLevel("MY_LEVEL"), "Facts cache hits: " + factsCache.getNbHits() + ", misses: " + factsCache.getNbMisses());
+        logger.log(Level.getLevel("MY_LEVEL"), "ClassesVisitor");
+        visitFacts(facts, classesVisitor);
+        logger.log(Level.getLevel("MY_LEVEL"), "GraphBuilderVisitor");
+        visitFacts(facts, graphBuilderVisitor);
+        logger.log(Level.getLevel("MY_LEVEL"), "PatternDetectionVisitor");
+        visitFacts(facts, createPatternDetectionVisitor());
+    }
 
-            parser.setUnitName(file.getCanonicalPath());
+    /**
+     * @return the visitor running all the design pattern detectors in a single pass
+     */
+    private PatternDetectionVisitor createPatternDetectionVisitor() {
+        return new PatternDetectionVisitor(graph,
+                new StrategyTemplateDecoratorVisitor(graph),
+                new FactoryVisitor(graph, Configuration.areIndirectFactorySubtypesDetected()));
+    }
 
-            parser.setEnvironment(new String[]{classpathPath}, new String[]{""}, new String[]{"UTF-8"}, true);
-            parser.setSource(fileContent.toCharArray());
+    private void exportToNeo4j(InMemoryGraph inMemoryGraph) throws IOException {
+        long startTime = System.currentTimeMillis();
+        NeoGraph neoGraph = createNeoGraph();
+        try (UnitOfWork unitOfWork = neoGraph.openUnitOfWork()) {
+            if (Configuration.getGraphCsvDirectory() != null) {
+                Path csvDirectory = Paths.get(Configuration.getGraphCsvDirectory()).toAbsolutePath();
+                inMemoryGraph.exportTo(neoGraph, csvDirectory,
+                        Configuration.getGraphCsvUrl() != null ? Configuration.getGraphCsvUrl() : csvDirectory.toUri().toString());
+            } else {
+                inMemoryGraph.exportTo(neoGraph);
+            }
+        }
+        neoGraph.close();
+        logger.printf(Level.getLevel("MY_LEVEL"), "Export to Neo4j execution time: %s", formatExecutionTime(System.currentTimeMillis() - startTime));
+    }
 
-            Map <String, String> options = JavaCore.getOptions();
-            options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
-            parser.setCompilerOptions(options);
+    /**
+     * @param withBodies whether the visitor looks inside the bodies of the methods
+     */
+    private void visitPackage(CompilationUnitStore compilationUnits, List <File> files, SymfinderVisitor visitor, boolean withBodies) throws IOException {
+        long startTime = System.currentTimeMillis();
+        try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+            for (File file : files) {
+                compilationUnits.getCompilationUnit(file, withBodies).accept(visitor);
+            }
+            visitor.endVisitFiles();
+        }
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        logger.printf(Level.getLevel("MY_LEVEL"), "%s execution time: %s", visitor.getClass().getTypeName(), formatExecutionTime(elapsedTime));
+    }
 
-            CompilationUnit cu = (CompilationUnit) parser.createAST(null);
-            cu.accept(visitor);
+    private void visitFacts(Collection <FileFacts> facts, SymfinderVisitor visitor) {
+        long startTime = System.currentTimeMillis();
+        try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+            for (FileFacts fileFacts : facts) {
+                visitor.visitFile(fileFacts);
+            }
+            visitor.endVisitFiles();
         }
         long elapsedTime = System.currentTimeMillis() - startTime;
         logger.printf(Level.getLevel("MY_LEVEL"), "%s execution time: %s", visitor.getClass().getTypeName(), formatExecutionTime(elapsedTime));
@@ -154,27 +283,6 @@ public class Symfinder {
         return false;
     }
 
-    private String getFileLines(File file) {
-        for (Charset charset : Charset.availableCharsets().values()) {
-            String lines = getFileLinesWithEncoding(file, charset);
-            if (lines != null) {
-                return lines;
-            }
-        }
-        return null;
-    }
-
-    private String getFileLinesWithEncoding(File file, Charset charset) {
-        try (Stream <String> lines = Files.lines(file.toPath(), charset)) {
-            return lines.collect(Collectors.joining("\n"));
-        } catch (UncheckedIOException e) {
-            logger.debug(charset.displayName() + ": wrong encoding");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     private String formatExecutionTime(long execTime) {
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSS");
         Date resultdate = new Date(execTime);
@@ -52,6 +52,13 @@ public class Configuration {
         }
     }
 
+    /**
+     * Replaces the parameters read from symfinder.yaml by the ones of another file.
+     */
+    public static void load(String propertiesFile) {
+        ourInstance = new Configuration(propertiesFile);
+    }
+
     public static String getNeo4JBoltAddress() {
         return properties.getNeo4j().getBoltAddress();
     }
@@ -64,4 +71,80 @@ public class Configuration {
         return properties.getNeo4j().getPassword();
     }
 
+    public static int getNeo4JWriteBatchSize() {
+        return properties.getNeo4j().getWriteBatchSize();
+    }
+
+    public static int getNeo4JCommitInterval() {
+        return properties.getNeo4j().getCommitInterval();
+    }
+
+    public static int getNeo4JNodeCacheSize() {
+        return properties.getNeo4j().getNodeCacheSize();
+    }
+
+    public static boolean isNeo4JEmbedded() {
+        return properties.getNeo4j().isEmbedded();
+    }
+
+    public static String getNeo4JStoreDirectory() {
+        return properties.getNeo4j().getStoreDirectory();
+    }
+
+    public static int getBatchSize() {
+        return properties.getParsing().getBatchSize();
+    }
+
+    public static int getMaxRetainedUnits() {
+        return properties.getParsing().getMaxRetainedUnits();
+    }
+
+    public static String getSpillDirectory() {
+        return properties.getParsing().getSpillDirectory();
+    }
+
+    public static int getParsingThreads() {
+        return properties.getParsing().getThreads();
+    }
+
+    public static String getFactsCacheDirectory() {
+        return properties.getParsing().getFactsCache();
+    }
+
+    public static boolean areFactsExtractedFirst() {
+        return properties.getParsing().isExtractFacts();
+    }
+
+    public static String getSourceEncoding() {
+        return properties.getParsing().getEncoding();
+    }
+
+    public static boolean isInMemoryGraph() {
+        return "memory".equals(properties.getGraph().getStore());
+    }
+
+    public static boolean isGraphExportedToNeo4j() {
+        return properties.getGraph().isExportToNeo4j();
+    }
+
+    public static boolean areOverloadsCountedWhileVisiting() {
+        return properties.getGraph().isCountOverloadsWhileVisiting();
+    }
+
+    public static boolean isGraphOutputCompressed() {
+        return properties.getGraph().isGzipOutput();
+    }
+
+    public static boolean areIndirectFactorySubtypesDetected() {
+        return properties.getGraph().isIndirectFactorySubtypes();
+    }
+
+    public static String getGraphCsvDirectory() {
+        return properties.getGraph().getCsvDirectory();
+    }
+
+    public static String getGraphCsvUrl() {
+        return properties.getGraph().getCsvUrl();
+    }
+
 }
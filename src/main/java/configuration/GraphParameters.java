@@ -0,0 +1,62 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package configuration;
+
+public class GraphParameters {
+
+    public String store = "neo4j";
+    public boolean exportToNeo4j = true;
+    public boolean countOverloadsWhileVisiting = true;
+    public boolean gzipOutput = false;
+    public boolean indirectFactorySubtypes = false;
+    public String csvDirectory;
+    public String csvUrl;
+
+    public String getStore() {
+        return store;
+    }
+
+    public boolean isExportToNeo4j() {
+        return exportToNeo4j;
+    }
+
+    public boolean isCountOverloadsWhileVisiting() {
+        return countOverloadsWhileVisiting;
+    }
+
+    public boolean isGzipOutput() {
+        return gzipOutput;
+    }
+
+    public boolean isIndirectFactorySubtypes() {
+        return indirectFactorySubtypes;
+    }
+
+    public String getCsvDirectory() {
+        return csvDirectory;
+    }
+
+    public String getCsvUrl() {
+        return csvUrl;
+    }
+
+}
@@ -26,6 +26,11 @@ public class Neo4jParameters {
     public String boltAddress;
     public String user;
     public String password;
+    public int writeBatchSize = 1000;
+    public int commitInterval = 0;
+    public int nodeCacheSize = 100000;
+    public boolean embedded = false;
+    public String storeDirectory;
 
     public String getBoltAddress() {
         return boltAddress;
@@ -39,4 +44,24 @@ public class Neo4jParameters {
         return password;
     }
 
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    public int getNodeCacheSize() {
+        return nodeCacheSize;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    public String getStoreDirectory() {
+        return storeDirectory;
+    }
+
 }
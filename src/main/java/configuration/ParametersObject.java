@@ -25,9 +25,20 @@ public class ParametersObject {
 
     public Neo4jParameters neo4j;
     public String experimentsFile;
+    public boolean incrementalRevisions = false;
+    public ParsingParameters parsing = new ParsingParameters();
+    public GraphParameters graph = new GraphParameters();
 
     public Neo4jParameters getNeo4j() {
         return neo4j;
     }
 
+    public ParsingParameters getParsing() {
+        return parsing;
+    }
+
+    public GraphParameters getGraph() {
+        return graph;
+    }
+
 }
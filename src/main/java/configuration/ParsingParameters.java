@@ -0,0 +1,62 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package configuration;
+
+public class ParsingParameters {
+
+    public int batchSize = 1;
+    public int maxRetainedUnits = 500;
+    public String spillDirectory;
+    public int threads = 0;
+    public String factsCache;
+    public boolean extractFacts = false;
+    public String encoding;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaxRetainedUnits() {
+        return maxRetainedUnits;
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public String getFactsCache() {
+        return factsCache;
+    }
+
+    public boolean isExtractFacts() {
+        return extractFacts;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+}
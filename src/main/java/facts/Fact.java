@@ -0,0 +1,83 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Information extracted from a node of a JDT syntax tree, with the bindings already resolved,
+ * which the visitors need to build the graph and detect the design patterns.
+ * <p>
+ * The facts of a file form a tree following the nesting of the syntax tree,
+ * so that the visitors go through them as they go through the syntax tree:
+ * the children of a fact are only visited if the visitor returns true when visiting it.
+ */
+public abstract class Fact implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List <Fact> children = new ArrayList <>();
+
+    void addChild(Fact child) {
+        children.add(child);
+    }
+
+    /**
+     * @return the children of the fact, which cannot be modified once the fact has been extracted
+     */
+    public List <Fact> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    public void accept(FactVisitor visitor) {
+        if (visit(visitor)) {
+            children.forEach(child -> child.accept(visitor));
+        }
+        endVisit(visitor);
+    }
+
+    /**
+     * Visits the fact and its children with several visitors in a single traversal.
+     * As with {@link #accept(FactVisitor)}, a visitor only goes through the children if it returned true when visiting the fact.
+     */
+    public void accept(List <? extends FactVisitor> visitors) {
+        List <FactVisitor> childrenVisitors = new ArrayList <>();
+        for (FactVisitor visitor : visitors) {
+            if (visit(visitor)) {
+                childrenVisitors.add(visitor);
+            }
+        }
+        if (! childrenVisitors.isEmpty()) {
+            children.forEach(child -> child.accept(childrenVisitors));
+        }
+        visitors.forEach(this::endVisit);
+    }
+
+    protected abstract boolean visit(FactVisitor visitor);
+
+    protected void endVisit(FactVisitor visitor) {
+    }
+
+}
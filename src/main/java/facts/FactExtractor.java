@@ -0,0 +1,125 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Extracts the facts of a compilation unit.
+ * Each fact is attached to the fact of its closest enclosing node, so that the visitors can skip the children of a node
+ * in the same way they do when visiting the syntax tree.
+ * Anonymous classes are ignored, as they are ignored by all visitors.
+ */
+class FactExtractor extends ASTVisitor {
+
+    private List <Fact> facts = new ArrayList <>();
+    private Deque <Fact> parents = new ArrayDeque <>();
+
+    List <Fact> getFacts() {
+        return facts;
+    }
+
+    private boolean push(Fact fact) {
+        add(fact);
+        parents.push(fact);
+        return true;
+    }
+
+    private void add(Fact fact) {
+        if (parents.isEmpty()) {
+            facts.add(fact);
+        } else {
+            parents.peek().addChild(fact);
+        }
+    }
+
+    private void pop() {
+        parents.pop();
+    }
+
+    @Override
+    public boolean visit(ImportDeclaration node) {
+        add(ImportFact.of(node));
+        return false;
+    }
+
+    @Override
+    public boolean visit(TypeDeclaration node) {
+        return push(TypeFact.of(node));
+    }
+
+    @Override
+    public void endVisit(TypeDeclaration node) {
+        pop();
+    }
+
+    @Override
+    public boolean visit(AnonymousClassDeclaration node) {
+        return false;
+    }
+
+    @Override
+    public boolean visit(MethodDeclaration node) {
+        return push(MethodFact.of(node));
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration node) {
+        pop();
+    }
+
+    @Override
+    public boolean visit(FieldDeclaration node) {
+        return push(FieldFact.of(node));
+    }
+
+    @Override
+    public void endVisit(FieldDeclaration node) {
+        pop();
+    }
+
+    @Override
+    public boolean visit(MethodInvocation node) {
+        return push(InvocationFact.of(node));
+    }
+
+    @Override
+    public void endVisit(MethodInvocation node) {
+        pop();
+    }
+
+    @Override
+    public boolean visit(ReturnStatement node) {
+        return push(ReturnFact.of(node));
+    }
+
+    @Override
+    public void endVisit(ReturnStatement node) {
+        pop();
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+/**
+ * Visitor of the facts of a file, equivalent to an ASTVisitor for the nodes the visitors are interested in.
+ * By default, the children of all facts are visited.
+ */
+public interface FactVisitor {
+
+    default boolean visit(ImportFact importFact) {
+        return true;
+    }
+
+    default boolean visit(TypeFact type) {
+        return true;
+    }
+
+    default void endVisit(TypeFact type) {
+    }
+
+    default boolean visit(MethodFact method) {
+        return true;
+    }
+
+    default boolean visit(FieldFact field) {
+        return true;
+    }
+
+    default boolean visit(InvocationFact invocation) {
+        return true;
+    }
+
+    default boolean visit(ReturnFact returnFact) {
+        return true;
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import parsing.SourceParser;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the facts of the source files.
+ * An entry is identified by the hash of the content of the file, of the symfinder version, of the JDK used to resolve the types,
+ * of the encoding of the source files and of the serialized fields of the facts classes, so that changing one of them invalidates the entry.
+ * Files whose facts are not in the cache are parsed one by one and their facts are added to the cache.
+ * The facts found during the last call to {@link #getFacts(List, SourceParser, int)} are also kept in memory,
+ * so that the files left unchanged between two revisions of a project analysed one after the other are neither read from the directory nor parsed.
+ */
+public class FactsCache {
+
+    private static final Logger logger = LogManager.getLogger(FactsCache.class);
+
+    /**
+     * To increment each time the facts extracted from a file change without a change of the fields of the facts classes.
+     */
+    private static final String FORMAT_VERSION = "1";
+
+    private Path directory;
+    private String environment;
+    private Map <String, FileFacts> previousFacts = new HashMap <>();
+    private Map <String, FileFacts> currentFacts = new ConcurrentHashMap <>();
+    private AtomicInteger nbHits = new AtomicInteger();
+    private AtomicInteger nbMisses = new AtomicInteger();
+
+    /**
+     * @param directory     directory in which the facts are stored, or null to only keep in memory the facts of the last revision analysed
+     * @param classpathPath path of the JDK used to resolve the types
+     */
+    public FactsCache(String directory, String classpathPath) throws IOException {
+        this.directory = directory == null ? null : Files.createDirectories(Paths.get(directory));
+        String version = System.getenv("SYMFINDER_VERSION");
+        this.environment = String.join("\n", version == null ? "dev" : version, FORMAT_VERSION, getSerializedForm(), classpathPath);
+    }
+
+    /**
+     * Describes the fields written for each facts class, as their serialVersionUID does not change when a field is added or removed.
+     */
+    private static String getSerializedForm() {
+        return Stream.of(FileFacts.class, Fact.class, TypeFact.class, MethodFact.class, FieldFact.class, ImportFact.class, InvocationFact.class, ReturnFact.class, TypeReference.class)
+                .map(ObjectStreamClass::lookup)
+                .map(description -> description.getName() + Arrays.stream(description.getFields())
+                        .map(field -> " " + field.getName() + ":" + field.getType().getName())
+                        .collect(Collectors.joining()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Gets the facts of all files, parsing in parallel the files whose facts are not in the cache.
+     *
+     * @param files    source files
+     * @param parser   parser used for the files whose facts are not in the cache
+     * @param nbThreads number of threads parsing the files, 0 for the number of available processors
+     * @return the facts of each file, in the order of the files
+     */
+    public Map <File, FileFacts> getFacts(List <File> files, SourceParser parser, int nbThreads) throws IOException {
+        nbHits.set(0);
+        nbMisses.set(0);
+        ForkJoinPool pool = new ForkJoinPool(nbThreads > 0 ? nbThreads : Runtime.getRuntime().availableProcessors());
+        try {
+            List <Callable <FileFacts>> tasks = new ArrayList <>();
+            for (File file : files) {
+                tasks.add(() -> getFacts(file, parser));
+            }
+            List <Future <FileFacts>> results = pool.invokeAll(tasks);
+            Map <File, FileFacts> facts = new LinkedHashMap <>();
+            for (int i = 0 ; i < files.size() ; i++) {
+                facts.put(files.get(i), getResult(results.get(i)));
+            }
+            return facts;
+        } finally {
+            pool.shutdown();
+            previousFacts = new HashMap <>(currentFacts);
+            currentFacts.clear();
+        }
+    }
+
+    /**
+     * Executed by the workers.
+     */
+    private FileFacts getFacts(File file, SourceParser parser) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        String key = getKey(content, parser.getDecoder().getEncoding());
+        Path entry = directory == null ? null : directory.resolve(key);
+        FileFacts facts = previousFacts.get(key);
+        if (facts == null && entry != null) {
+            facts = read(entry);
+        }
+        if (facts != null) {
+            nbHits.incrementAndGet();
+        } else {
+            nbMisses.incrementAndGet();
+            facts = FileFacts.of(parser.parse(file, parser.getDecoder().decode(file, content)));
+            if (entry != null) {
+                write(entry, facts);
+            }
+        }
+        currentFacts.put(key, facts);
+        return facts;
+    }
+
+    /**
+     * @param encoding charset of all source files, or null if the charset of each file is found from its content
+     */
+    private String getKey(byte[] content, Charset encoding) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(environment.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((encoding == null ? "" : encoding.name()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest(content)) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the facts of the entry, or null if the entry does not exist or cannot be read,
+     * e.g. if it was written by an incompatible version ({@link InvalidClassException}) or is corrupted
+     */
+    private FileFacts read(Path entry) {
+        if (! Files.exists(entry)) {
+            return null;
+        }
+        try (ObjectInputStream inputStream = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            return (FileFacts) inputStream.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.debug("Unreadable facts cache entry " + entry + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * The entry is written in a temporary file which is then renamed, so that an interrupted run does not leave a truncated entry.
+     */
+    private void write(Path entry, FileFacts facts) throws IOException {
+        Path temporaryEntry = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryEntry)))) {
+            outputStream.writeObject(facts);
+        }
+        Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private FileFacts getResult(Future <FileFacts> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of files whose facts were found in memory or in the directory during the last call to {@link #getFacts(List, SourceParser, int)}
+     */
+    public int getNbHits() {
+        return nbHits.get();
+    }
+
+    /**
+     * @return the number of files parsed during the last call to {@link #getFacts(List, SourceParser, int)}
+     */
+    public int getNbMisses() {
+        return nbMisses.get();
+    }
+
+}
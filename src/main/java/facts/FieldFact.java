@@ -0,0 +1,67 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+/**
+ * Declaration of a field.
+ */
+public class FieldFact extends Fact {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TypeReference type;
+    private final TypeReference declaringClass;
+
+    private FieldFact(FieldDeclaration field) {
+        this.type = TypeReference.of(field.getType().resolveBinding());
+        this.declaringClass = field.getParent() instanceof TypeDeclaration ?
+                TypeReference.of(((TypeDeclaration) field.getParent()).resolveBinding()) :
+                null;
+    }
+
+    public static FieldFact of(FieldDeclaration field) {
+        return new FieldFact(field);
+    }
+
+    @Override
+    protected boolean visit(FactVisitor visitor) {
+        return visitor.visit(this);
+    }
+
+    /**
+     * @return the type of the field, or null if JDT could not resolve it
+     */
+    public TypeReference getType() {
+        return type;
+    }
+
+    /**
+     * @return the class or interface declaring the field, or null if the field is declared in another kind of type (e.g. an enum)
+     */
+    public TypeReference getDeclaringClass() {
+        return declaringClass;
+    }
+
+}
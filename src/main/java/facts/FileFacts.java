@@ -0,0 +1,67 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Facts contributed by a source file to the graph, in the order in which the visitors find them in its syntax tree.
+ */
+public class FileFacts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List <Fact> facts;
+
+    FileFacts(List <Fact> facts) {
+        this.facts = Collections.unmodifiableList(facts);
+    }
+
+    public static FileFacts of(CompilationUnit compilationUnit) {
+        FactExtractor extractor = new FactExtractor();
+        compilationUnit.accept(extractor);
+        return new FileFacts(extractor.getFacts());
+    }
+
+    public List <Fact> getFacts() {
+        return facts;
+    }
+
+    /**
+     * Replays the facts of the file on the visitor, as if it visited the syntax tree of the file.
+     */
+    public void accept(FactVisitor visitor) {
+        facts.forEach(fact -> fact.accept(visitor));
+    }
+
+    /**
+     * Replays the facts of the file on several visitors in a single traversal, each visitor seeing the facts as if it visited the file alone.
+     */
+    public void accept(List <? extends FactVisitor> visitors) {
+        facts.forEach(fact -> fact.accept(visitors));
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+
+/**
+ * Import declaration of a file.
+ */
+public class ImportFact extends Fact {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final boolean isStatic;
+    private final boolean isOnDemand;
+
+    private ImportFact(ImportDeclaration importDeclaration) {
+        this.name = importDeclaration.getName().getFullyQualifiedName();
+        this.isStatic = importDeclaration.isStatic();
+        this.isOnDemand = importDeclaration.isOnDemand();
+    }
+
+    public static ImportFact of(ImportDeclaration importDeclaration) {
+        return new ImportFact(importDeclaration);
+    }
+
+    @Override
+    protected boolean visit(FactVisitor visitor) {
+        return visitor.visit(this);
+    }
+
+    /**
+     * @return the imported name, without the ".*" of imports on demand
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    public boolean isOnDemand() {
+        return isOnDemand;
+    }
+
+}
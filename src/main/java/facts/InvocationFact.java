@@ -0,0 +1,79 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.Modifier;
+
+/**
+ * Invocation of a method.
+ */
+public class InvocationFact extends Fact {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TypeReference declaringClass;
+    private final String declaringClassKey;
+    private final boolean isDeclaringClassInterface;
+    private final boolean isAbstractMethod;
+
+    private InvocationFact(MethodInvocation invocation) {
+        IMethodBinding binding = invocation.resolveMethodBinding();
+        this.declaringClass = binding == null ? null : TypeReference.of(binding.getDeclaringClass());
+        this.declaringClassKey = binding == null ? null : binding.getDeclaringClass().getKey();
+        this.isDeclaringClassInterface = binding != null && binding.getDeclaringClass().isInterface();
+        this.isAbstractMethod = binding != null && Modifier.isAbstract(binding.getModifiers());
+    }
+
+    public static InvocationFact of(MethodInvocation invocation) {
+        return new InvocationFact(invocation);
+    }
+
+    @Override
+    protected boolean visit(FactVisitor visitor) {
+        return visitor.visit(this);
+    }
+
+    /**
+     * @return the class declaring the invoked method, or null if JDT could not resolve the method binding
+     */
+    public TypeReference getDeclaringClass() {
+        return declaringClass;
+    }
+
+    /**
+     * @return true if the invoked method is declared by this type, i.e. by the same binding
+     */
+    public boolean isDeclaredBy(TypeFact type) {
+        return declaringClassKey != null && type != null && declaringClassKey.equals(type.getKey());
+    }
+
+    public boolean isDeclaringClassInterface() {
+        return isDeclaringClassInterface;
+    }
+
+    public boolean isAbstractMethod() {
+        return isAbstractMethod;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.Modifier;
+
+/**
+ * Declaration of a method or a constructor.
+ */
+public class MethodFact extends Fact {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final boolean isConstructor;
+    private final boolean isAbstract;
+    private final TypeReference declaringClass;
+    private final boolean isDeclaringClassInterface;
+
+    private MethodFact(MethodDeclaration method) {
+        IMethodBinding binding = method.resolveBinding();
+        this.name = method.getName().getIdentifier();
+        this.isConstructor = method.isConstructor();
+        this.isAbstract = Modifier.isAbstract(method.getModifiers());
+        this.declaringClass = binding == null ? null : TypeReference.of(binding.getDeclaringClass());
+        this.isDeclaringClassInterface = binding != null && binding.getDeclaringClass().isInterface();
+    }
+
+    public static MethodFact of(MethodDeclaration method) {
+        return new MethodFact(method);
+    }
+
+    @Override
+    protected boolean visit(FactVisitor visitor) {
+        return visitor.visit(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isConstructor() {
+        return isConstructor;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    /**
+     * @return the class declaring the method, or null if JDT could not resolve the method binding
+     */
+    public TypeReference getDeclaringClass() {
+        return declaringClass;
+    }
+
+    public boolean isDeclaringClassInterface() {
+        return isDeclaringClassInterface;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.*;
+
+/**
+ * Return statement of a method, with the type of the returned object and the return type of the method.
+ * If one of them cannot be resolved, or if the returned object is null or has a nested type, the statement has no type information.
+ */
+public class ReturnFact extends Fact {
+
+    private static final long serialVersionUID = 1L;
+
+    private String returnedType;
+    private String methodName;
+    private TypeReference methodReturnType;
+    private boolean isMethodReturnTypeInterface;
+    private TypeReference methodDeclaringClass;
+    private boolean isMethodDeclaringClassInterface;
+
+    private ReturnFact(ReturnStatement returnStatement) {
+        ITypeBinding returnedTypeBinding = returnStatement.getExpression() == null ? null : returnStatement.getExpression().resolveTypeBinding();
+        if (returnedTypeBinding == null || returnedTypeBinding.isNested() || returnedTypeBinding.getQualifiedName() == null || returnedTypeBinding.getQualifiedName().equals("null")) {
+            return;
+        }
+        MethodDeclaration methodDeclaration = getEnclosingMethod(returnStatement);
+        // Check for constructor because of java.sourceui/src/org/netbeans/api/java/source/ui/ElementJavadoc.java:391 in netbeans-incubator
+        // TODO: 3/22/19 find why getReturnType2 returns null in core/src/main/java/org/apache/cxf/bus/managers/BindingFactoryManagerImpl.java
+        // TODO: 4/18/19 find why resolveBinding returns null in AWT 9+181, KeyboardFocusManager.java:2439, return SNFH_FAILURE
+        if (methodDeclaration != null && ! methodDeclaration.isConstructor() && methodDeclaration.getReturnType2().resolveBinding() != null && methodDeclaration.resolveBinding() != null) {
+            ITypeBinding returnTypeBinding = methodDeclaration.getReturnType2().resolveBinding();
+            ITypeBinding declaringClassBinding = methodDeclaration.resolveBinding().getDeclaringClass();
+            this.returnedType = returnedTypeBinding.getQualifiedName();
+            this.methodName = methodDeclaration.getName().getIdentifier();
+            this.methodReturnType = TypeReference.of(returnTypeBinding);
+            this.isMethodReturnTypeInterface = returnTypeBinding.isInterface();
+            this.methodDeclaringClass = TypeReference.of(declaringClassBinding);
+            this.isMethodDeclaringClassInterface = declaringClassBinding.isInterface();
+        }
+    }
+
+    public static ReturnFact of(ReturnStatement returnStatement) {
+        return new ReturnFact(returnStatement);
+    }
+
+    private static MethodDeclaration getEnclosingMethod(ASTNode node) {
+        ASTNode parentNode = node.getParent();
+        // If parentNode == null, it means that we went up through all parents without finding a method declaration
+        while (parentNode != null && parentNode.getNodeType() != ASTNode.METHOD_DECLARATION) {
+            parentNode = parentNode.getParent();
+        }
+        return (MethodDeclaration) parentNode;
+    }
+
+    @Override
+    protected boolean visit(FactVisitor visitor) {
+        return visitor.visit(this);
+    }
+
+    public boolean hasTypes() {
+        return returnedType != null;
+    }
+
+    /**
+     * @return the qualified name of the type of the returned object
+     */
+    public String getReturnedType() {
+        return returnedType;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public TypeReference getMethodReturnType() {
+        return methodReturnType;
+    }
+
+    public boolean isMethodReturnTypeInterface() {
+        return isMethodReturnTypeInterface;
+    }
+
+    public TypeReference getMethodDeclaringClass() {
+        return methodDeclaringClass;
+    }
+
+    public boolean isMethodDeclaringClassInterface() {
+        return isMethodDeclaringClassInterface;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Declaration of a class or an interface.
+ */
+public class TypeFact extends Fact {
+
+    private static final long serialVersionUID = 1L;
+
+    private final TypeReference type;
+    private final String key;
+    private final boolean isInterface;
+    private final boolean isAbstract;
+    private final boolean isTestClass;
+    private final boolean isPrivateNested;
+    private final boolean isEnum;
+    private final boolean isAnonymous;
+    private final TypeReference superclass;
+    private final List <TypeReference> interfaces;
+
+    private TypeFact(TypeDeclaration type) {
+        ITypeBinding binding = type.resolveBinding();
+        this.type = TypeReference.of(binding);
+        this.key = binding.getKey();
+        this.isInterface = binding.isInterface();
+        this.isAbstract = Modifier.isAbstract(type.getModifiers());
+        this.isTestClass = Arrays.asList(binding.getPackage().getNameComponents()).contains("test");
+        this.isPrivateNested = binding.isNested() && Modifier.isPrivate(binding.getModifiers());
+        this.isEnum = binding.isEnum();
+        this.isAnonymous = binding.isAnonymous();
+        this.superclass = TypeReference.of(binding.getSuperclass());
+        this.interfaces = Collections.unmodifiableList(Arrays.stream(binding.getInterfaces()).map(TypeReference::of).collect(Collectors.toList()));
+    }
+
+    public static TypeFact of(TypeDeclaration type) {
+        return new TypeFact(type);
+    }
+
+    @Override
+    protected boolean visit(FactVisitor visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    protected void endVisit(FactVisitor visitor) {
+        visitor.endVisit(this);
+    }
+
+    public TypeReference getType() {
+        return type;
+    }
+
+    public String getQualifiedName() {
+        return type.getQualifiedName();
+    }
+
+    /**
+     * @return the JDT binding key of the type, identifying it among the types of the file
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public boolean isInterface() {
+        return isInterface;
+    }
+
+    /**
+     * @return true if the declaration has the abstract modifier
+     */
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    /**
+     * @return true if one of the components of the package name is "test"
+     */
+    public boolean isTestClass() {
+        return isTestClass;
+    }
+
+    public boolean isPrivateNested() {
+        return isPrivateNested;
+    }
+
+    public boolean isEnum() {
+        return isEnum;
+    }
+
+    public boolean isAnonymous() {
+        return isAnonymous;
+    }
+
+    /**
+     * @return the superclass, or null if the type has none (interfaces and java.lang.Object)
+     */
+    public TypeReference getSuperclass() {
+        return superclass;
+    }
+
+    public List <TypeReference> getInterfaces() {
+        return interfaces;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package facts;
+
+import org.eclipse.jdt.core.dom.ITypeBinding;
+
+import java.io.Serializable;
+
+/**
+ * Names of a type used in a file, as resolved by JDT.
+ * The names are interned, as the same types are referenced from many files and their names are mostly equal to each other,
+ * so that the facts of all the files kept in memory share the same strings.
+ */
+public class TypeReference implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String qualifiedName;
+    private final String name;
+    private final String erasureQualifiedName;
+    private final String boundQualifiedName;
+    private final String boundName;
+
+    private TypeReference(String qualifiedName, String name, String erasureQualifiedName, String boundQualifiedName, String boundName) {
+        this.qualifiedName = qualifiedName.intern();
+        this.name = name.intern();
+        this.erasureQualifiedName = erasureQualifiedName.intern();
+        this.boundQualifiedName = boundQualifiedName.intern();
+        this.boundName = boundName.intern();
+    }
+
+    /**
+     * Interns the names of the references read from the facts cache.
+     */
+    private Object readResolve() {
+        return new TypeReference(qualifiedName, name, erasureQualifiedName, boundQualifiedName, boundName);
+    }
+
+    /**
+     * @return the reference to the type, or null if the binding is null
+     */
+    public static TypeReference of(ITypeBinding binding) {
+        if (binding == null) {
+            return null;
+        }
+        // If there is a type bound, it means that there is a capture binding, e.g. capture-of ? extends Object[]
+        // Therefore, the class is resolved from the binding of the bound
+        ITypeBinding bound = binding.getTypeBounds().length != 0 ? binding.getTypeBounds()[0] : binding;
+        return new TypeReference(binding.getQualifiedName(), binding.getName(), binding.getErasure().getQualifiedName(), bound.getQualifiedName(), bound.getName());
+    }
+
+    public String getQualifiedName() {
+        return qualifiedName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getErasureQualifiedName() {
+        return erasureQualifiedName;
+    }
+
+    /**
+     * @return the qualified name of the first type bound if the type has some, the qualified name of the type otherwise
+     */
+    public String getBoundQualifiedName() {
+        return boundQualifiedName;
+    }
+
+    /**
+     * @return the name of the first type bound if the type has some, the name of the type otherwise
+     */
+    public String getBoundName() {
+        return boundName;
+    }
+
+}
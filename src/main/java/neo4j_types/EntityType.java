@@ -28,4 +28,11 @@ public enum EntityType implements NodeType {
     public String getString() {
         return this.toString();
     }
+
+    /**
+     * @return true for the classes and interfaces, whose nodes can be looked up in a package
+     */
+    public boolean isType() {
+        return this == CLASS || this == INTERFACE;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Methods and constructors of a class, counted while visiting its declarations,
+ * from which the method and constructor VPs and variants of the class are computed.
+ */
+public class ClassOverloads {
+
+    private final Node classNode;
+    private final Map <String, Integer> nbMethodsByName = new HashMap <>();
+    private int nbConstructors = 0;
+
+    public ClassOverloads(Node classNode) {
+        this.classNode = classNode;
+    }
+
+    public Node getClassNode() {
+        return classNode;
+    }
+
+    public void addMethod(String name) {
+        nbMethodsByName.merge(name, 1, Integer::sum);
+    }
+
+    public void addConstructor() {
+        nbConstructors++;
+    }
+
+    /**
+     * @return the number of method names defined more than once in the class
+     */
+    public int getMethodVPs() {
+        return (int) nbMethodsByName.values().stream().filter(nbMethods -> nbMethods > 1).count();
+    }
+
+    /**
+     * @return the number of methods whose name is defined more than once in the class
+     */
+    public int getMethodVariants() {
+        return nbMethodsByName.values().stream().filter(nbMethods -> nbMethods > 1).mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * @return 1 if the class has more than a constructor, 0 otherwise
+     */
+    public int getConstructorVPs() {
+        return nbConstructors > 1 ? 1 : 0;
+    }
+
+    /**
+     * @return the number of constructors if the class has more than one, 0 otherwise
+     */
+    public int getConstructorVariants() {
+        return nbConstructors > 1 ? nbConstructors : 0;
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.RelationType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a graph in CSV files, to be loaded in Neo4j by {@link NeoGraph#loadCsvFiles(CsvGraphWriter, String)}
+ * or by {@code neo4j-admin import} in a new store.
+ * <p>
+ * The nodes having the same labels are written to the same file, as well as the relationships having the same type,
+ * so that the labels and types do not have to be read from the rows when loading them with LOAD CSV.
+ * The headers follow the format of {@code neo4j-admin import}: the nodes are identified by the {@code :ID} column,
+ * their labels are also in the {@code :LABEL} column, and the relationships have {@code :START_ID}, {@code :END_ID} and {@code :TYPE} columns.
+ * The rows are written to the files as the nodes and relationships are given, the files being only complete once the writer is closed.
+ */
+public class CsvGraphWriter implements Closeable {
+
+    static final String ID = ":ID";
+    static final String START_ID = ":START_ID";
+    static final String END_ID = ":END_ID";
+    private static final String LABEL = ":LABEL";
+    private static final String TYPE = ":TYPE";
+
+    private final Path directory;
+    private final List <String> stringProperties;
+    private final List <String> longProperties;
+    private final Map <List <String>, NodeFile> nodeFiles = new LinkedHashMap <>();
+    private final Map <RelationType, RelationshipFile> relationshipFiles = new LinkedHashMap <>();
+
+    /**
+     * @param directory        directory in which the files are written, created if needed
+     * @param stringProperties properties of the nodes having a string value
+     * @param longProperties   properties of the nodes having an integer value
+     */
+    public CsvGraphWriter(Path directory, List <String> stringProperties, List <String> longProperties) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        this.stringProperties = stringProperties;
+        this.longProperties = longProperties;
+        Files.createDirectories(this.directory);
+    }
+
+    /**
+     * @param id         identifier of the node, referenced by the relationships
+     * @param labels     labels of the node
+     * @param properties properties of the node, the ones not given to the constructor being ignored
+     */
+    public void writeNode(long id, Collection <String> labels, Map <String, Object> properties) throws IOException {
+        List <String> nodeLabels = new ArrayList <>(labels);
+        NodeFile file = nodeFiles.get(nodeLabels);
+        if (file == null) {
+            file = new NodeFile(directory.resolve("nodes-" + nodeFiles.size() + ".csv"), nodeLabels);
+            nodeFiles.put(nodeLabels, file);
+        }
+        List <String> row = new ArrayList <>();
+        row.add(String.valueOf(id));
+        stringProperties.forEach(property -> row.add(quote((String) properties.get(property))));
+        longProperties.forEach(property -> row.add(properties.get(property) == null ? "" : properties.get(property).toString()));
+        row.add(String.join(";", nodeLabels));
+        file.writeRow(row);
+    }
+
+    public void writeRelationship(long sourceId, long targetId, RelationType type) throws IOException {
+        RelationshipFile file = relationshipFiles.get(type);
+        if (file == null) {
+            file = new RelationshipFile(directory.resolve("relationships-" + type + ".csv"), type);
+            relationshipFiles.put(type, file);
+        }
+        file.writeRow(Arrays.asList(String.valueOf(sourceId), String.valueOf(targetId), type.toString()));
+    }
+
+    /**
+     * @return the node files with the labels of their nodes, in the order the files were created
+     */
+    public Map <Path, List <String>> getNodeFiles() {
+        return nodeFiles.values().stream().collect(Collectors.toMap(file -> file.path, file -> file.labels, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * @return the relationship files with the type of their relationships
+     */
+    public Map <Path, RelationType> getRelationshipFiles() {
+        return relationshipFiles.values().stream().collect(Collectors.toMap(file -> file.path, file -> file.type, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public List <String> getStringProperties() {
+        return stringProperties;
+    }
+
+    public List <String> getLongProperties() {
+        return longProperties;
+    }
+
+    /**
+     * @return the name of the column holding the property in the node files
+     */
+    static String getLongColumn(String property) {
+        return property + ":long";
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        List <CsvFile> files = new ArrayList <>(nodeFiles.values());
+        files.addAll(relationshipFiles.values());
+        for (CsvFile file : files) {
+            try {
+                file.writer.close();
+            } catch (IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Quotes the value, a missing value being written as an empty field so that it is loaded as null.
+     */
+    private static String quote(String value) {
+        return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static class CsvFile {
+
+        final Path path;
+        final Writer writer;
+
+        CsvFile(Path path, List <String> header) throws IOException {
+            this.path = path;
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+            writeRow(header);
+        }
+
+        void writeRow(List <String> row) throws IOException {
+            writer.write(String.join(",", row));
+            writer.write('\n');
+        }
+
+    }
+
+    private class NodeFile extends CsvFile {
+
+        final List <String> labels;
+
+        NodeFile(Path path, List <String> labels) throws IOException {
+            super(path, getNodeHeader());
+            this.labels = labels;
+        }
+
+    }
+
+    private static class RelationshipFile extends CsvFile {
+
+        final RelationType type;
+
+        RelationshipFile(Path path, RelationType type) throws IOException {
+            super(path, Arrays.asList(START_ID, END_ID, TYPE));
+            this.type = type;
+        }
+
+    }
+
+    private List <String> getNodeHeader() {
+        List <String> header = new ArrayList <>();
+        header.add(ID);
+        header.addAll(stringProperties);
+        longProperties.forEach(property -> header.add(getLongColumn(property)));
+        header.add(LABEL);
+        return header;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.v1.AuthTokens;
+import org.neo4j.driver.v1.Config;
+import org.neo4j.driver.v1.Driver;
+import org.neo4j.driver.v1.GraphDatabase;
+import org.neo4j.graphdb.DependencyResolver;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.configuration.BoltConnector;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import procedures.DetectionProcedure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Neo4j database running in the symfinder process, so that no Neo4j server has to be started.
+ * <p>
+ * The {@link NeoGraph}s created on it send their statements through a Bolt connector only listening on the loopback interface,
+ * and the {@link DetectionProcedure} is registered in it.
+ * The store is either kept in the given directory, where it can later be opened by a Neo4j 3.5 server to browse the graph,
+ * or written to a temporary directory deleted when the database is closed.
+ * A store left in the given directory by a previous run is deleted when the database starts.
+ */
+public class EmbeddedNeo4j implements AutoCloseable {
+
+    private final GraphDatabaseService database;
+    private final Path storeDirectory;
+    private final boolean storeKept;
+    private final String boltAddress;
+
+    /**
+     * @param storeDirectory directory of the store, or null to use a temporary directory
+     */
+    public EmbeddedNeo4j(String storeDirectory) throws IOException {
+        this.storeKept = storeDirectory != null;
+        this.storeDirectory = storeKept ? new File(storeDirectory).toPath() : Files.createTempDirectory("symfinder-neo4j");
+        if (storeKept && Files.exists(this.storeDirectory)) {
+            deleteStore();
+        }
+        this.boltAddress = "localhost:" + getFreePort();
+        BoltConnector bolt = new BoltConnector("bolt");
+        this.database = new GraphDatabaseFactory()
+                .newEmbeddedDatabaseBuilder(this.storeDirectory.toFile())
+                .setConfig(bolt.type, BoltConnector.ConnectorType.BOLT.name())
+                .setConfig(bolt.enabled, "true")
+                .setConfig(bolt.listen_address, boltAddress)
+                .setConfig(bolt.encryption_level, BoltConnector.EncryptionLevel.DISABLED.name())
+                .setConfig(GraphDatabaseSettings.auth_enabled, "false")
+                .newGraphDatabase();
+        try {
+            ((GraphDatabaseAPI) database).getDependencyResolver().resolveDependency(Procedures.class, DependencyResolver.SelectionStrategy.ONLY).registerProcedure(DetectionProcedure.class);
+        } catch (KernelException e) {
+            close();
+            throw new IllegalStateException("Cannot register the procedures in the embedded database", e);
+        }
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * @return a driver connected to the database, to be closed by its user
+     */
+    public Driver newDriver() {
+        return GraphDatabase.driver("bolt://" + boltAddress, AuthTokens.none(), Config.build().withoutEncryption().toConfig());
+    }
+
+    public Path getStoreDirectory() {
+        return storeDirectory;
+    }
+
+    /**
+     * Shuts the database down and deletes its store if it is not kept.
+     */
+    @Override
+    public void close() {
+        database.shutdown();
+        if (! storeKept) {
+            try {
+                deleteStore();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void deleteStore() throws IOException {
+        try (Stream <Path> paths = Files.walk(storeDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+}
@@ -0,0 +1,395 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import org.json.JSONObject;
+import org.neo4j.driver.v1.types.Node;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Graph in which the visitors store the classes, methods and relationships they find,
+ * and on which the variation points and variants are detected.
+ * <p>
+ * {@link NeoGraph} stores the graph in a Neo4j database, {@link InMemoryGraph} keeps it in the JVM.
+ */
+public interface GraphStore {
+
+    /**
+     * Creates a node of corresponding name and types and returns it.
+     *
+     * @param name  Node name
+     * @param types Node types
+     */
+    Node createNode(String name, NodeType type, NodeType... types);
+
+    Optional <Node> getNode(String name);
+
+    /**
+     * Returns the node labeled CLASS or INTERFACE and having the name in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getTypeNode(String name);
+
+    /**
+     * Returns the node labeled CLASS and having the name in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getClassNode(String name);
+
+    /**
+     * Returns the node labeled INTERFACE and having the name in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getInterfaceNode(String name);
+
+    /**
+     * Returns the node corresponding to the superclass of the node whose name is in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    Optional <Node> getSuperclassNode(String name);
+
+    /**
+     * Returns the list of nodes corresponding to the interfaces implemented by the node whose name is in parameter
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    List <Node> getImplementedInterfacesNodes(String name);
+
+    Optional <Node> getNodeWithNameInPackage(String name, String packageName);
+
+    /**
+     * Returns the node if it exists, creates it and returns it otherwise.
+     * As we use qualified names, each name is unique. Therefore, we can match only on node name.
+     * If the node does not exist, it is created with the specified types as labels.
+     *
+     * @param name             Node name
+     * @param type             Node type
+     * @param createAttributes Node attributes added when creating the node
+     * @param matchAttributes  Node attributes added when matching an existing node
+     */
+    Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes);
+
+    default Node getOrCreateNode(String name, EntityType type) {
+        return getOrCreateNode(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
+    }
+
+    default Node getOrCreateNode(String name, EntityType type, EntityAttribute[] attributes) {
+        return getOrCreateNode(name, type, attributes, attributes);
+    }
+
+    /**
+     * Creates the relationship node1 -> node2 of the given type.
+     *
+     * @param node1 source node
+     * @param node2 target node
+     */
+    void linkTwoNodes(Node node1, Node node2, RelationType type);
+
+    void addLabelToNode(Node node, String label);
+
+    /**
+     * Adds the label to all the nodes, each node being given once.
+     *
+     * @param nodes nodes to label
+     * @param label label added to the nodes
+     */
+    default void addLabelToNodes(Collection <Node> nodes, String label) {
+        nodes.forEach(node -> addLabelToNode(node, label));
+    }
+
+    /**
+     * Get number of subclasses of a class or implementations of an interface
+     *
+     * @param node Node corresponding to the class
+     * @return Number of subclasses or implementations
+     */
+    int getNbVariants(Node node);
+
+    /**
+     * Checks whether two nodes have a direct relationship.
+     *
+     * @param parentNode source node of the relationship
+     * @param childNode  destination node of the relationship
+     * @return true if a relationship exists, false otherwise
+     */
+    boolean relatedTo(Node parentNode, Node childNode);
+
+    /**
+     * Returns the EXTENDS and IMPLEMENTS relationships between the classes and interfaces currently in the graph,
+     * to check subtypes without querying the graph.
+     * The hierarchy is not updated when the graph changes.
+     */
+    TypeHierarchy getTypeHierarchy();
+
+    default void detectVPsAndVariants() {
+        setMethodVPs();
+        setMethodVariants();
+        setConstructorVPs();
+        setConstructorVariants();
+        setNbVariantsProperty();
+        setVPLabels();
+        setMethodLevelVPLabels();
+        setVariantsLabels();
+    }
+
+    /**
+     * Detects the VPs and variants, the methods and constructors of the classes having been counted while visiting them.
+     * The method and constructor VPs and variants are then set from the counts instead of being computed from the graph.
+     *
+     * @param overloads methods and constructors of the classes
+     */
+    default void detectVPsAndVariants(Collection <ClassOverloads> overloads) {
+        setOverloads(overloads);
+        setNbVariantsProperty();
+        setVPLabels();
+        setMethodLevelVPLabels();
+        setVariantsLabels();
+    }
+
+    /**
+     * Sets for each class the number of methods with different names defined more than once in the class.
+     * If no method is overloaded, the property is set to 0.
+     */
+    void setMethodVPs();
+
+    /**
+     * Sets for each class the number of method variants induced by method VPs.
+     * If no method is overloaded, the property is set to 0.
+     */
+    void setMethodVariants();
+
+    /**
+     * Sets for each class the number of overloaded constructors, i.e. 1 if the class has more than a constructor, 0 otherwise.
+     */
+    void setConstructorVPs();
+
+    /**
+     * Sets for each class the number of overloads of the constructor.
+     * If there is no overload (i.e. there is 0 or 1 constructor), the property is set to 0.
+     */
+    void setConstructorVariants();
+
+    /**
+     * Sets for each class the methodVPs, methodVariants, constructorVPs and constructorVariants properties from the methods and constructors counted in the class.
+     * This replaces {@link #setMethodVPs()}, {@link #setMethodVariants()}, {@link #setConstructorVPs()} and {@link #setConstructorVariants()}.
+     * The properties of the classes missing from the collection are set to 0.
+     *
+     * @param overloads methods and constructors of the classes
+     */
+    void setOverloads(Collection <ClassOverloads> overloads);
+
+    /**
+     * Creates for all class and interfaces nodes a property classVariants expressing the number of subclasses it contains.
+     */
+    void setNbVariantsProperty();
+
+    /**
+     * Adds a VP label to the node if it is a VP.
+     * A node is a VP if it:
+     * - is an abstract class
+     * - is an interface
+     * - has class or method level variants (subclasses / implementations or methods / constructors overloads)
+     * - has a design pattern.
+     */
+    void setVPLabels();
+
+    void setMethodLevelVPLabels();
+
+    void setVariantsLabels();
+
+    int getNbNodesHavingDesignPatterns();
+
+    /**
+     * Get total number of variants.
+     * This corresponds to the number of variants at class and method level.
+     *
+     * @return Number of variants
+     */
+    default int getTotalNbVariants() {
+        return getNbClassLevelVariants() + getNbMethodLevelVariants();
+    }
+
+    /**
+     * Get number of variants at class level.
+     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface defined in the project.
+     *
+     * @return Number of class level variants
+     */
+    int getNbClassLevelVariants();
+
+    /**
+     * Get number of variants at method level.
+     * This corresponds to the number of method and constructor overloads.
+     *
+     * @return Number of method level variants
+     */
+    default int getNbMethodLevelVariants() {
+        return getNbMethodVariants() + getNbConstructorVariants();
+    }
+
+    /**
+     * Get number of variants caused by method overloading.
+     * This corresponds to the total number of method variants.
+     *
+     * @return Number of overloaded methods
+     */
+    int getNbMethodVariants();
+
+    /**
+     * Get number of variants caused by constructor overloading.
+     * This corresponds to the total number of constructor overloads.
+     *
+     * @return Number of constructor overloads
+     */
+    int getNbConstructorVariants();
+
+    /**
+     * Get total number of overloaded constructors.
+     *
+     * @return Number of overloaded constructors
+     */
+    int getNbConstructorVPs();
+
+    /**
+     * Get total number of overloaded methods.
+     *
+     * @return Number of overloaded methods
+     */
+    int getNbMethodVPs();
+
+    /**
+     * Get total number of VPs.
+     * This corresponds to the number of VPs at class and method level.
+     *
+     * @return Number of VPs
+     */
+    default int getTotalNbVPs() {
+        return getNbClassLevelVPs() + getNbMethodLevelVPs();
+    }
+
+    /**
+     * Get total number of method level VPs.
+     * These are :
+     * - overloaded methods
+     * - overloaded constructors
+     *
+     * @return Number of method level VPs
+     */
+    default int getNbMethodLevelVPs() {
+        return getNbMethodVPs() + getNbConstructorVPs();
+    }
+
+    /**
+     * Get total number of class level VPs.
+     * These are :
+     * - interfaces
+     * - abstract classes
+     * - extended classes
+     *
+     * @return Number of class level VPs
+     */
+    int getNbClassLevelVPs();
+
+    int getNbNodes();
+
+    int getNbRelationships();
+
+    int getNbInheritanceRelationships();
+
+    void writeGraphFile(String filePath);
+
+    void writeVPGraphFile(String filePath);
+
+    default void writeStatisticsFile(String filePath) {
+        writeToFile(filePath, generateStatisticsJson());
+    }
+
+    default void writeToFile(String filePath, String content) {
+        Path path = Paths.get(filePath);
+        try {
+            if (path.toFile().getParentFile().exists() || (path.toFile().getParentFile().mkdirs() && path.toFile().createNewFile())) {
+                try (BufferedWriter bw = Files.newBufferedWriter(path)) {
+                    bw.write(content);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    default String generateStatisticsJson() {
+        return new JSONObject()
+                .put("VPs", getTotalNbVPs())
+                .put("methodsVPs", getNbMethodVPs())
+                .put("constructorsVPs", getNbConstructorVPs())
+                .put("methodLevelVPs", getNbMethodLevelVPs())
+                .put("classLevelVPs", getNbClassLevelVPs())
+                .put("variants", getTotalNbVariants())
+                .put("methodsVariants", getNbMethodVariants())
+                .put("constructorsVariants", getNbConstructorVariants())
+                .put("methodLevelVariants", getNbMethodLevelVariants())
+                .put("classLevelVariants", getNbClassLevelVariants()).toString();
+    }
+
+    /**
+     * Starts a group of operations, typically a visitor pass, sharing the resources needed to access the graph.
+     * The operations are done when the returned unit of work is closed.
+     */
+    default UnitOfWork openUnitOfWork() {
+        return () -> {
+        };
+    }
+
+    /**
+     * Deletes all nodes and relationships in the graph.
+     */
+    void deleteGraph();
+
+    /**
+     * Releases the resources held by the graph.
+     */
+    void close();
+
+}
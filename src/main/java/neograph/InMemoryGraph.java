@@ -0,0 +1,543 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import org.json.JSONObject;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.Values;
+import org.neo4j.driver.v1.types.Node;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Graph kept in the JVM, with nodes indexed by name and relationships stored as adjacency lists.
+ * <p>
+ * It behaves like {@link NeoGraph}: the nodes returned are snapshots of the stored nodes,
+ * and the lookups return the nodes in their creation order, as Neo4j does.
+ * Once the analysis is over, the graph can be exported to a Neo4j database with {@link #exportTo(NeoGraph)}.
+ */
+public class InMemoryGraph implements GraphStore {
+
+    private static final String NAME = "name";
+    private static final String METHOD_VPS = "methodVPs";
+    private static final String METHOD_VARIANTS = "methodVariants";
+    private static final String CONSTRUCTOR_VPS = "constructorVPs";
+    private static final String CONSTRUCTOR_VARIANTS = "constructorVariants";
+    private static final String CLASS_VARIANTS = "classVariants";
+
+    private List <GraphNode> nodes = new ArrayList <>();
+    private Map <String, List <GraphNode>> nodesByName = new HashMap <>();
+    private Map <String, List <GraphNode>> nodesBySimpleName = new HashMap <>();
+    private List <GraphRelationship> relationships = new ArrayList <>();
+
+    @Override
+    public Node createNode(String name, NodeType type, NodeType... types) {
+        GraphNode node = new GraphNode(nodes.size(), name);
+        Arrays.stream(types).forEach(nodeType -> node.labels.add(nodeType.getString()));
+        node.labels.add(type.getString());
+        nodes.add(node);
+        nodesByName.computeIfAbsent(name, key -> new ArrayList <>()).add(node);
+        nodesBySimpleName.computeIfAbsent(getSimpleName(name), key -> new ArrayList <>()).add(node);
+        return node.toNode();
+    }
+
+    @Override
+    public Optional <Node> getNode(String name) {
+        return getNodesNamed(name).findFirst().map(GraphNode::toNode);
+    }
+
+    @Override
+    public Optional <Node> getTypeNode(String name) {
+        return getNodesNamed(name).filter(hasLabel(EntityType.CLASS).or(hasLabel(EntityType.INTERFACE))).findFirst().map(GraphNode::toNode);
+    }
+
+    @Override
+    public Optional <Node> getClassNode(String name) {
+        return getNodesNamed(name).filter(hasLabel(EntityType.CLASS)).findFirst().map(GraphNode::toNode);
+    }
+
+    @Override
+    public Optional <Node> getInterfaceNode(String name) {
+        return getNodesNamed(name).filter(hasLabel(EntityType.INTERFACE)).findFirst().map(GraphNode::toNode);
+    }
+
+    @Override
+    public Optional <Node> getSuperclassNode(String name) {
+        return getParentsOfNodesNamed(name, RelationType.EXTENDS, EntityType.CLASS).findFirst().map(GraphNode::toNode);
+    }
+
+    @Override
+    public List <Node> getImplementedInterfacesNodes(String name) {
+        return getParentsOfNodesNamed(name, RelationType.IMPLEMENTS, EntityType.INTERFACE).map(GraphNode::toNode).collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional <Node> getNodeWithNameInPackage(String name, String packageName) {
+        String prefix = packageName + ".";
+        String suffix = "." + name;
+        return nodesBySimpleName.getOrDefault(getSimpleName(name), Collections.emptyList()).stream()
+                .filter(hasLabel(EntityType.CLASS).or(hasLabel(EntityType.INTERFACE)))
+                .filter(node -> node.name != null && node.name.startsWith(prefix) && node.name.endsWith(suffix))
+                .findFirst()
+                .map(GraphNode::toNode);
+    }
+
+    @Override
+    public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        Optional <GraphNode> existingNode = getNodesNamed(name).filter(hasLabel(type)).findFirst();
+        if (existingNode.isPresent()) {
+            Arrays.stream(matchAttributes).forEach(attribute -> existingNode.get().labels.add(attribute.getString()));
+            return existingNode.get().toNode();
+        }
+        return createNode(name, type, createAttributes);
+    }
+
+    @Override
+    public void linkTwoNodes(Node node1, Node node2, RelationType type) {
+        GraphRelationship relationship = new GraphRelationship(getGraphNode(node1), getGraphNode(node2), type);
+        relationship.source.outgoing.add(relationship);
+        relationship.target.incoming.add(relationship);
+        relationships.add(relationship);
+    }
+
+    @Override
+    public void addLabelToNode(Node node, String label) {
+        getGraphNode(node).labels.add(label);
+    }
+
+    @Override
+    public int getNbVariants(Node node) {
+        return countClassVariants(getGraphNode(node));
+    }
+
+    @Override
+    public boolean relatedTo(Node parentNode, Node childNode) {
+        GraphNode child = getGraphNode(childNode);
+        return getGraphNode(parentNode).outgoing.stream().anyMatch(relationship -> relationship.target == child);
+    }
+
+    @Override
+    public TypeHierarchy getTypeHierarchy() {
+        TypeHierarchy hierarchy = new TypeHierarchy();
+        nodes.stream()
+                .filter(hasLabel(EntityType.CLASS).or(hasLabel(EntityType.INTERFACE)))
+                .forEach(node -> hierarchy.addType(node.id, node.name, hasLabel(EntityType.CLASS).test(node)));
+        getInheritanceRelationships().forEach(relationship -> hierarchy.addInheritance(relationship.source.id, relationship.target.id));
+        return hierarchy;
+    }
+
+    @Override
+    public void setMethodVPs() {
+        nodes.stream().filter(hasLabel(EntityType.CLASS)).forEach(node -> {
+            long overloadedMethods = getOverloadedMethods(node).size();
+            if (overloadedMethods > 0 || ! node.properties.containsKey(METHOD_VPS)) {
+                node.properties.put(METHOD_VPS, overloadedMethods);
+            }
+        });
+    }
+
+    @Override
+    public void setMethodVariants() {
+        nodes.stream().filter(hasLabel(EntityType.CLASS)).forEach(node -> {
+            long methodVariants = getOverloadedMethods(node).values().stream().mapToLong(Set::size).sum();
+            if (methodVariants > 0 || ! node.properties.containsKey(METHOD_VARIANTS)) {
+                node.properties.put(METHOD_VARIANTS, methodVariants);
+            }
+        });
+    }
+
+    @Override
+    public void setConstructorVPs() {
+        nodes.stream().filter(hasLabel(EntityType.CLASS)).forEach(node -> {
+            long constructors = countConstructors(node);
+            if (constructors > 0 || ! node.properties.containsKey(CONSTRUCTOR_VPS)) {
+                node.properties.put(CONSTRUCTOR_VPS, constructors > 1 ? 1L : 0L);
+            }
+        });
+    }
+
+    @Override
+    public void setConstructorVariants() {
+        nodes.stream().filter(hasLabel(EntityType.CLASS)).forEach(node -> {
+            long constructors = countConstructors(node);
+            if (constructors > 0 || ! node.properties.containsKey(CONSTRUCTOR_VARIANTS)) {
+                node.properties.put(CONSTRUCTOR_VARIANTS, constructors > 1 ? constructors : 0L);
+            }
+        });
+    }
+
+    @Override
+    public void setOverloads(Collection <ClassOverloads> overloads) {
+        overloads.forEach(classOverloads -> {
+            GraphNode node = getGraphNode(classOverloads.getClassNode());
+            node.properties.put(METHOD_VPS, (long) classOverloads.getMethodVPs());
+            node.properties.put(METHOD_VARIANTS, (long) classOverloads.getMethodVariants());
+            node.properties.put(CONSTRUCTOR_VPS, (long) classOverloads.getConstructorVPs());
+            node.properties.put(CONSTRUCTOR_VARIANTS, (long) classOverloads.getConstructorVariants());
+        });
+        nodes.stream().filter(hasLabel(EntityType.CLASS)).forEach(node -> {
+            node.properties.putIfAbsent(METHOD_VPS, 0L);
+            node.properties.putIfAbsent(METHOD_VARIANTS, 0L);
+            node.properties.putIfAbsent(CONSTRUCTOR_VPS, 0L);
+            node.properties.putIfAbsent(CONSTRUCTOR_VARIANTS, 0L);
+        });
+    }
+
+    @Override
+    public void setNbVariantsProperty() {
+        nodes.forEach(node -> {
+            long classVariants = countClassVariants(node);
+            if (classVariants > 0) {
+                node.properties.put(CLASS_VARIANTS, classVariants);
+            }
+        });
+        nodes.stream()
+                .filter(hasLabel(EntityType.CLASS).or(hasLabel(EntityType.INTERFACE)))
+                .forEach(node -> node.properties.putIfAbsent(CLASS_VARIANTS, 0L));
+    }
+
+    @Override
+    public void setVPLabels() {
+        nodes.stream()
+                .filter(hasLabel(EntityAttribute.OUT_OF_SCOPE).negate())
+                .filter(hasLabel(EntityType.INTERFACE)
+                        .or(hasLabel(EntityType.CLASS).and(hasLabel(EntityAttribute.ABSTRACT)))
+                        .or(hasDesignPattern())
+                        .or(node -> getLongProperty(node, CLASS_VARIANTS) > 0))
+                .forEach(node -> node.labels.add(EntityAttribute.VP.getString()));
+    }
+
+    @Override
+    public void setMethodLevelVPLabels() {
+        nodes.stream()
+                .filter(hasLabel(EntityAttribute.OUT_OF_SCOPE).negate())
+                .filter(node -> getLongProperty(node, METHOD_VPS) > 0 || getLongProperty(node, CONSTRUCTOR_VPS) > 0)
+                .forEach(node -> node.labels.add(EntityAttribute.METHOD_LEVEL_VP.getString()));
+    }
+
+    @Override
+    public void setVariantsLabels() {
+        getInheritanceRelationships()
+                .filter(relationship -> hasLabel(EntityAttribute.VP).test(relationship.source))
+                .map(relationship -> relationship.target)
+                .filter(hasLabel(EntityType.CLASS).or(hasLabel(EntityType.INTERFACE)))
+                .collect(Collectors.toList())
+                .forEach(node -> node.labels.add(EntityAttribute.VARIANT.getString()));
+    }
+
+    @Override
+    public int getNbNodesHavingDesignPatterns() {
+        return (int) nodes.stream().filter(hasDesignPattern()).count();
+    }
+
+    @Override
+    public int getNbClassLevelVariants() {
+        return (int) nodes.stream().filter(hasLabel(EntityAttribute.VARIANT)).count();
+    }
+
+    @Override
+    public int getNbMethodVariants() {
+        return sumClassesProperty(METHOD_VARIANTS);
+    }
+
+    @Override
+    public int getNbConstructorVariants() {
+        return sumClassesProperty(CONSTRUCTOR_VARIANTS);
+    }
+
+    @Override
+    public int getNbConstructorVPs() {
+        return sumClassesProperty(CONSTRUCTOR_VPS);
+    }
+
+    @Override
+    public int getNbMethodVPs() {
+        return sumClassesProperty(METHOD_VPS);
+    }
+
+    @Override
+    public int getNbClassLevelVPs() {
+        return (int) nodes.stream().filter(hasLabel(EntityAttribute.VP)).count();
+    }
+
+    @Override
+    public int getNbNodes() {
+        return nodes.size();
+    }
+
+    @Override
+    public int getNbRelationships() {
+        return relationships.size();
+    }
+
+    @Override
+    public int getNbInheritanceRelationships() {
+        return (int) getInheritanceRelationships().count();
+    }
+
+    @Override
+    public void writeGraphFile(String filePath) {
+        writeJsonGraph(filePath, false);
+    }
+
+    @Override
+    public void writeVPGraphFile(String filePath) {
+        writeJsonGraph(filePath, true);
+    }
+
+    @Override
+    public void deleteGraph() {
+        nodes.clear();
+        nodesByName.clear();
+        nodesBySimpleName.clear();
+        relationships.clear();
+    }
+
+    @Override
+    public void close() {
+        deleteGraph();
+    }
+
+    /**
+     * Creates in the Neo4j database all the nodes and relationships of this graph.
+     *
+     * @param neoGraph graph in which the nodes and relationships are created
+     */
+    public void exportTo(NeoGraph neoGraph) {
+        List <Node> exportedNodes = nodes.stream()
+                .map(node -> {
+                    Map <String, Object> properties = new HashMap <>(node.properties);
+                    properties.put(NAME, node.name);
+                    return neoGraph.createNode(node.labels, properties);
+                })
+                .collect(Collectors.toList());
+        relationships.forEach(relationship -> neoGraph.linkTwoNodes(
+                exportedNodes.get((int) relationship.source.id),
+                exportedNodes.get((int) relationship.target.id),
+                relationship.type));
+    }
+
+    /**
+     * Creates in the Neo4j database all the nodes and relationships of this graph by writing them to CSV files
+     * loaded with {@link NeoGraph#loadCsvFiles(CsvGraphWriter, String)}.
+     *
+     * @param neoGraph     graph in which the nodes and relationships are loaded
+     * @param csvDirectory directory in which the CSV files are written
+     * @param csvUrl       URL of this directory as seen by the database
+     */
+    public void exportTo(NeoGraph neoGraph, Path csvDirectory, String csvUrl) throws IOException {
+        CsvGraphWriter writer = new CsvGraphWriter(csvDirectory,
+                Arrays.asList(NAME, NeoGraph.SIMPLE_NAME),
+                Arrays.asList(METHOD_VPS, METHOD_VARIANTS, CONSTRUCTOR_VPS, CONSTRUCTOR_VARIANTS, CLASS_VARIANTS));
+        try {
+            writeCsvFiles(writer);
+        } finally {
+            writer.close();
+        }
+        neoGraph.loadCsvFiles(writer, csvUrl);
+    }
+
+    /**
+     * Writes the nodes and relationships of this graph with the writer, the classes and interfaces getting
+     * the simple name and TYPE label that {@link NeoGraph} gives them.
+     */
+    public void writeCsvFiles(CsvGraphWriter writer) throws IOException {
+        for (GraphNode node : nodes) {
+            List <String> labels = new ArrayList <>(node.labels);
+            Map <String, Object> properties = new HashMap <>(node.properties);
+            if (NeoGraph.isType(labels)) {
+                labels.add(NeoGraph.TYPE_LABEL);
+                properties.putAll(NeoGraph.getTypeProperties(node.name, labels));
+            } else {
+                properties.put(NAME, node.name);
+            }
+            writer.writeNode(node.id, labels, properties);
+        }
+        for (GraphRelationship relationship : relationships) {
+            writer.writeRelationship(relationship.source.id, relationship.target.id, relationship.type);
+        }
+    }
+
+    private Stream <GraphNode> getNodesNamed(String name) {
+        return nodesByName.getOrDefault(name, Collections.emptyList()).stream();
+    }
+
+    /**
+     * @return the last component of the name, e.g. {@code Shape} for {@code org.shapes.Shape}
+     */
+    private static String getSimpleName(String name) {
+        return name == null ? null : name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Returns the source nodes of the relationships of the given type
+     * going to a node having the given name and whose source has the given label.
+     */
+    private Stream <GraphNode> getParentsOfNodesNamed(String name, RelationType relationType, NodeType parentType) {
+        return getNodesNamed(name)
+                .flatMap(node -> node.incoming.stream())
+                .filter(relationship -> relationship.type == relationType)
+                .map(relationship -> relationship.source)
+                .filter(hasLabel(parentType));
+    }
+
+    private GraphNode getGraphNode(Node node) {
+        return nodes.get((int) node.id());
+    }
+
+    private Stream <GraphRelationship> getInheritanceRelationships() {
+        return relationships.stream().filter(GraphRelationship::isInheritance);
+    }
+
+    /**
+     * Returns the methods of the class having the same name as at least one other method of the class, grouped by name.
+     */
+    private Map <String, Set <GraphNode>> getOverloadedMethods(GraphNode classNode) {
+        Map <String, Set <GraphNode>> methodsByName = classNode.outgoing.stream()
+                .map(relationship -> relationship.target)
+                .filter(hasLabel(EntityType.METHOD))
+                .filter(method -> method.name != null)
+                .collect(Collectors.groupingBy(method -> method.name, LinkedHashMap::new, Collectors.toCollection(LinkedHashSet::new)));
+        methodsByName.values().removeIf(methods -> methods.size() < 2);
+        return methodsByName;
+    }
+
+    private long countConstructors(GraphNode classNode) {
+        return classNode.outgoing.stream()
+                .map(relationship -> relationship.target)
+                .filter(hasLabel(EntityType.CONSTRUCTOR))
+                .filter(constructor -> constructor.name != null)
+                .count();
+    }
+
+    private int countClassVariants(GraphNode node) {
+        return (int) node.outgoing.stream()
+                .filter(GraphRelationship::isInheritance)
+                .map(relationship -> relationship.target)
+                .filter(hasLabel(EntityType.CLASS))
+                .count();
+    }
+
+    private int sumClassesProperty(String property) {
+        return (int) nodes.stream()
+                .filter(hasLabel(EntityType.CLASS))
+                .mapToLong(node -> getLongProperty(node, property))
+                .sum();
+    }
+
+    private static long getLongProperty(GraphNode node, String property) {
+        Object value = node.properties.get(property);
+        return value == null ? 0 : (Long) value;
+    }
+
+    private static Predicate <GraphNode> hasLabel(NodeType type) {
+        return node -> node.labels.contains(type.getString());
+    }
+
+    private static Predicate <GraphNode> hasDesignPattern() {
+        return node -> Arrays.stream(DesignPatternType.values()).anyMatch(type -> hasLabel(type).test(node));
+    }
+
+    private void writeJsonGraph(String filePath, boolean onlyVPs) {
+        Predicate <GraphNode> exportedNodes = onlyVPs ?
+                hasLabel(EntityAttribute.VP).or(hasLabel(EntityAttribute.VARIANT)).or(hasLabel(EntityAttribute.METHOD_LEVEL_VP)) :
+                node -> true;
+        List <String> exportedProperties = onlyVPs ?
+                Arrays.asList(METHOD_VPS, CONSTRUCTOR_VPS, METHOD_VARIANTS, CONSTRUCTOR_VARIANTS, CLASS_VARIANTS) :
+                Arrays.asList(METHOD_VPS, CONSTRUCTOR_VPS, METHOD_VARIANTS, CONSTRUCTOR_VARIANTS);
+        try (JsonGraphWriter writer = new JsonGraphWriter(filePath)) {
+            nodes.stream()
+                    .filter(exportedNodes)
+                    .forEach(node -> {
+                        JSONObject json = new JSONObject()
+                                .put("types", node.labels)
+                                .put(NAME, node.name);
+                        exportedProperties.forEach(property -> json.putOpt(property, node.properties.get(property)));
+                        writer.writeNode(json);
+                    });
+            getInheritanceRelationships()
+                    .filter(relationship -> ! onlyVPs || hasLabel(EntityAttribute.VP).test(relationship.source))
+                    .filter(relationship -> ! hasLabel(EntityAttribute.OUT_OF_SCOPE).test(relationship.source) && ! hasLabel(EntityAttribute.OUT_OF_SCOPE).test(relationship.target))
+                    .forEach(relationship -> writer.writeLink(new JSONObject()
+                            .put("source", relationship.source.name)
+                            .put("target", relationship.target.name)
+                            .put("type", relationship.type.toString())));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class GraphNode {
+
+        private final long id;
+        private final String name;
+        private final Set <String> labels = new LinkedHashSet <>();
+        private final Map <String, Object> properties = new HashMap <>();
+        private final List <GraphRelationship> outgoing = new ArrayList <>();
+        private final List <GraphRelationship> incoming = new ArrayList <>();
+
+        GraphNode(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        Node toNode() {
+            Map <String, Value> values = new HashMap <>();
+            if (name != null) {
+                values.put(NAME, Values.value(name));
+            }
+            properties.forEach((key, value) -> values.put(key, Values.value(value)));
+            return new InternalNode(id, new ArrayList <>(labels), values);
+        }
+
+    }
+
+    private static class GraphRelationship {
+
+        private final GraphNode source;
+        private final GraphNode target;
+        private final RelationType type;
+
+        GraphRelationship(GraphNode source, GraphNode target, RelationType type) {
+            this.source = source;
+            this.target = target;
+            this.type = type;
+        }
+
+        boolean isInheritance() {
+            return type == RelationType.EXTENDS || type == RelationType.IMPLEMENTS;
+        }
+
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.json.JSONObject;
+import org.json.JSONWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a graph in a JSON file of the form {"nodes":[...],"links":[...]}.
+ * <p>
+ * The nodes, then the links, are written to the file one at a time as they are read from the graph,
+ * so that the document is never held in memory whatever the size of the graph.
+ * The file is compressed with gzip if its name ends with ".gz".
+ */
+public class JsonGraphWriter implements Closeable {
+
+    private final Writer writer;
+    private final JSONWriter jsonWriter;
+    private boolean writingLinks = false;
+
+    public JsonGraphWriter(String filePath) throws IOException {
+        Path path = Paths.get(filePath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(path));
+        if (filePath.endsWith(".gz")) {
+            outputStream = new GZIPOutputStream(outputStream);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        jsonWriter = new JSONWriter(writer);
+        jsonWriter.object().key("nodes").array();
+    }
+
+    public void writeNode(JSONObject node) {
+        if (writingLinks) {
+            throw new IllegalStateException("The nodes must be written before the links");
+        }
+        jsonWriter.value(node);
+    }
+
+    public void writeLink(JSONObject link) {
+        startLinks();
+        jsonWriter.value(link);
+    }
+
+    private void startLinks() {
+        if (! writingLinks) {
+            jsonWriter.endArray().key("links").array();
+            writingLinks = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            startLinks();
+            jsonWriter.endArray().endObject();
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -25,28 +25,68 @@ import neo4j_types.*;
 import org.json.JSONObject;
 import org.neo4j.driver.v1.*;
 import org.neo4j.driver.v1.exceptions.ServiceUnavailableException;
-import org.neo4j.driver.v1.types.MapAccessor;
 import org.neo4j.driver.v1.types.Node;
+import procedures.DetectionProcedure;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.neo4j.driver.v1.Values.parameters;
 
-public class NeoGraph {
+/**
+ * Graph stored in a Neo4j database.
+ * <p>
+ * The methods used by the visitors to create, find and link nodes can be called from several threads at once:
+ * the creations are buffered per thread, the nodes having the same name are got or created by one thread at a time,
+ * and the statements are executed one at a time on the session shared by the threads.
+ * The detection of the VPs and variants, the statistics and the exports are expected to run on a single thread once the visitors are done.
+ */
+public class NeoGraph implements GraphStore {
+
+    static final String SIMPLE_NAME = "simpleName";
+    /**
+     * Label shared by the classes and interfaces, so that a type can be looked up by name through a single index.
+     * It is not exported with the other labels.
+     */
+    static final String TYPE_LABEL = "TYPE";
+    /**
+     * Temporary label and property of the nodes loaded from CSV files, used to find the nodes of the relationships.
+     */
+    private static final String IMPORTED_LABEL = "IMPORTED";
+    private static final String IMPORT_ID = "importId";
+    private static final int CSV_COMMIT_SIZE = 10000;
+    private static final int NB_NAME_LOCKS = 64;
 
     private Driver driver;
+    private WriteBuffer writeBuffer;
+    private int commitInterval = 0;
+    private Session session;
+    private Transaction transaction;
+    private int nbStatementsInTransaction;
+    private NodeCache nodeCache;
+    private Boolean detectionProcedureInstalled;
+    private final VariantCounts variantCounts = new VariantCounts(this::loadNbVariants);
+    // Held while a statement is executed and its result read, as the threads writing to the graph share the session and the transaction
+    private final Object statementLock = new Object();
+    // Locks striped by node name, so that the threads getting or creating nodes having the same name do it one after the other
+    private final Object[] nameLocks = Stream.generate(Object::new).limit(NB_NAME_LOCKS).toArray();
 
     public NeoGraph(String uri, String user, String password) {
-        driver = getDriver(uri, user, password);
+        this(uri, user, password, 1);
     }
 
-    private Driver getDriver(String uri, String user, String password) {
+    /**
+     * @param writeBatchSize maximum number of node and relationship creations sent to the database in a single statement.
+     *                       With a value greater than 1, the creations are buffered and the nodes returned are {@link PendingNode}s.
+     */
+    public NeoGraph(String uri, String user, String password, int writeBatchSize) {
+        this(getDriver(uri, user, password), writeBatchSize);
+    }
+
+    private static Driver getDriver(String uri, String user, String password) {
         int count = 0;
         int maxTries = 10;
         while (true) {
@@ -67,7 +107,14 @@ public class NeoGraph {
     }
 
     public NeoGraph(Driver driver) {
+        this(driver, 1);
+    }
+
+    public NeoGraph(Driver driver, int writeBatchSize) {
         this.driver = driver;
+        if (writeBatchSize > 1) {
+            this.writeBuffer = new WriteBuffer(writeBatchSize, this::runRequest);
+        }
     }
 
     /**
@@ -76,18 +123,85 @@ public class NeoGraph {
      * @param name  Node name
      * @param types Node types
      */
+    @Override
     public Node createNode(String name, NodeType type, NodeType... types) {
         List <NodeType> nodeTypes = new ArrayList <>(Arrays.asList(types));
         nodeTypes.add(type);
-        return submitRequest(String.format("CREATE (n:%s { name: $name}) RETURN (n)",
-                nodeTypes.stream().map(NodeType::getString).collect(Collectors.joining(":"))),
-                "name", name)
-                .list().get(0).get(0).asNode();
+        List <String> labels = nodeTypes.stream().map(NodeType::getString).collect(Collectors.toList());
+        if (isType(labels)) {
+            labels.add(TYPE_LABEL);
+        }
+        Map <String, Object> properties = getTypeProperties(name, labels);
+        synchronized (getNameLock(name)) {
+            Node node = writeBuffer != null ?
+                    writeBuffer.createNode(labels, properties) :
+                    submitRequest(String.format("CREATE (n:%s) SET n = $properties RETURN (n)", String.join(":", labels)), "properties", properties)
+                            .get(0).get(0).asNode();
+            addToNodeCache(name, node, labels);
+            return node;
+        }
     }
 
+    /**
+     * Creates a node having the given labels and properties and returns it.
+     *
+     * @param labels     Node labels
+     * @param properties Node properties
+     */
+    public Node createNode(Collection <String> labels, Map <String, Object> properties) {
+        if (properties.get("name") instanceof String && isType(labels) && ! properties.containsKey(SIMPLE_NAME)) {
+            properties = new HashMap <>(properties);
+            properties.putAll(getTypeProperties((String) properties.get("name"), labels));
+        }
+        if (isType(labels) && ! labels.contains(TYPE_LABEL)) {
+            labels = new ArrayList <>(labels);
+            labels.add(TYPE_LABEL);
+        }
+        synchronized (getNameLock(properties.get("name"))) {
+            Node node = writeBuffer != null ?
+                    writeBuffer.createNode(labels, properties) :
+                    submitRequest(String.format("CREATE (n:%s) SET n = $properties RETURN (n)", String.join(":", labels)), "properties", properties)
+                            .get(0).get(0).asNode();
+            if (properties.get("name") instanceof String) {
+                addToNodeCache((String) properties.get("name"), node, labels);
+            }
+            return node;
+        }
+    }
+
+    @Override
     public Optional <Node> getNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n {name: $name}) RETURN (n)", "name", name).list();
-        return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
+        List <NodeCache.CachedNode> cachedNodes = getCachedNodes(name);
+        if (cachedNodes != null) {
+            return cachedNodes.stream().findFirst().map(NodeCache.CachedNode::getNode);
+        }
+        // The nodes created by another thread between the statement and the update of the cache would be missing from the cache
+        synchronized (getNameLock(name)) {
+            List <Node> nodes = submitReadRequest("MATCH (n {name: $name}) RETURN (n) ORDER BY ID(n)", "name", name)
+                    .stream().map(record -> record.get(0).asNode()).collect(Collectors.toList());
+            if (nodeCache != null) {
+                nodeCache.put(name, nodes.stream().map(node -> new NodeCache.CachedNode(node, node.labels())).collect(Collectors.toList()));
+            }
+            return nodes.stream().findFirst();
+        }
+    }
+
+    /**
+     * Returns the node labeled CLASS or INTERFACE and having the name in parameter.
+     * As we use a custom index :TYPE(name), the database does not have to scan the methods having the same name.
+     *
+     * @param name node name
+     * @return the node if it exists, Optional.empty otherwise
+     */
+    @Override
+    public Optional <Node> getTypeNode(String name) {
+        List <NodeCache.CachedNode> cachedNodes = getCachedNodes(name);
+        if (cachedNodes != null) {
+            return getFirstCachedNodeWithLabel(cachedNodes, TYPE_LABEL);
+        }
+        return submitReadRequest("MATCH (n:TYPE {name: $name}) RETURN (n) ORDER BY ID(n) LIMIT 1", "name", name).stream()
+                .map(record -> record.get(0).asNode())
+                .findFirst();
     }
 
     /**
@@ -97,8 +211,13 @@ public class NeoGraph {
      * @param name node name
      * @return the node if it exists, Optional.empty otherwise
      */
+    @Override
     public Optional <Node> getClassNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n:CLASS {name: $name}) RETURN (n)", "name", name).list();
+        List <NodeCache.CachedNode> cachedNodes = getCachedNodes(name);
+        if (cachedNodes != null) {
+            return getFirstCachedNodeWithLabel(cachedNodes, EntityType.CLASS.toString());
+        }
+        List <Record> recordList = submitReadRequest("MATCH (n:CLASS {name: $name}) RETURN (n)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -109,8 +228,13 @@ public class NeoGraph {
      * @param name node name
      * @return the node if it exists, Optional.empty otherwise
      */
+    @Override
     public Optional <Node> getInterfaceNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (n:INTERFACE {name: $name}) RETURN (n)", "name", name).list();
+        List <NodeCache.CachedNode> cachedNodes = getCachedNodes(name);
+        if (cachedNodes != null) {
+            return getFirstCachedNodeWithLabel(cachedNodes, EntityType.INTERFACE.toString());
+        }
+        List <Record> recordList = submitReadRequest("MATCH (n:INTERFACE {name: $name}) RETURN (n)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -120,8 +244,9 @@ public class NeoGraph {
      * @param name node name
      * @return the node if it exists, Optional.empty otherwise
      */
+    @Override
     public Optional <Node> getSuperclassNode(String name) {
-        List <Record> recordList = submitRequest("MATCH (s:CLASS)-[:EXTENDS]->(n {name: $name}) RETURN (s)", "name", name).list();
+        List <Record> recordList = submitReadRequest("MATCH (s:CLASS)-[:EXTENDS]->(n:TYPE {name: $name}) RETURN (s)", "name", name);
         return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
     }
 
@@ -131,15 +256,27 @@ public class NeoGraph {
      * @param name node name
      * @return the node if it exists, Optional.empty otherwise
      */
+    @Override
     public List <Node> getImplementedInterfacesNodes(String name) {
-        List <Record> recordList = submitRequest("MATCH (s:INTERFACE)-[:IMPLEMENTS]->(n {name: $name}) RETURN (s)", "name", name).list();
+        List <Record> recordList = submitReadRequest("MATCH (s:INTERFACE)-[:IMPLEMENTS]->(n:TYPE {name: $name}) RETURN (s)", "name", name);
         return recordList.size() == 0 ? Collections.emptyList() : recordList.stream().map(record -> record.get(0).asNode()).collect(Collectors.toList());
     }
 
 
+    @Override
     public Optional <Node> getNodeWithNameInPackage(String name, String packageName) {
-        List <Record> recordList = submitRequest("MATCH (n) WHERE (n:CLASS OR n:INTERFACE) AND n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n)", "package", packageName + ".", "inheritedClassName", "." + name).list();
-        return recordList.size() == 0 ? Optional.empty() : Optional.of(recordList.get(0).get(0).asNode());
+        List <NodeCache.CachedNode> cachedNodes = nodeCache == null ? null : nodeCache.getInPackage(name, packageName);
+        if (cachedNodes != null) {
+            return cachedNodes.stream()
+                    .filter(cachedNode -> cachedNode.hasLabel(EntityType.CLASS.toString()) || cachedNode.hasLabel(EntityType.INTERFACE.toString()))
+                    .map(NodeCache.CachedNode::getNode)
+                    .min(Comparator.comparingLong(Node::id));
+        }
+        // The simple name is matched first so that the lookup can use the indexes on it instead of scanning all the types
+        return submitReadRequest("MATCH (n:TYPE) WHERE n.simpleName = $simpleName AND n.name STARTS WITH $package AND n.name ENDS WITH $inheritedClassName RETURN (n) ORDER BY ID(n) LIMIT 1",
+                "simpleName", getSimpleName(name), "package", packageName + ".", "inheritedClassName", "." + name).stream()
+                .map(record -> record.get(0).asNode())
+                .findFirst();
     }
 
     /**
@@ -152,12 +289,46 @@ public class NeoGraph {
      * @param createAttributes Node attributes added when creating the node
      * @param matchAttributes  Node attributes added when matching an existing node
      */
+    @Override
     public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
-        String onCreateAttributes = createAttributes.length == 0 ?
-                "" :
-                "ON CREATE SET n:" + Arrays.stream(createAttributes)
-                        .map(NodeType::getString)
-                        .collect(Collectors.joining(":"));
+        // Without the lock, two threads missing the node in the cache would both add the merged node to the cache
+        synchronized (getNameLock(name)) {
+            List <NodeCache.CachedNode> cachedNodes = getCachedNodes(name);
+            Optional <NodeCache.CachedNode> cachedNode = cachedNodes == null ?
+                    Optional.empty() :
+                    cachedNodes.stream().filter(node -> node.hasLabel(type.toString())).findFirst();
+            if (cachedNode.isPresent() && matchAttributes.length == 0) {
+                return cachedNode.get().getNode();
+            }
+            Node node = mergeNode(name, type, createAttributes, matchAttributes);
+            if (cachedNode.isPresent()) {
+                cachedNode.get().update(node, getLabels(matchAttributes));
+            } else {
+                List <String> labels = getLabels(createAttributes);
+                labels.add(type.toString());
+                if (type.isType()) {
+                    labels.add(TYPE_LABEL);
+                }
+                addToNodeCache(name, node, labels);
+            }
+            return node;
+        }
+    }
+
+    private Node mergeNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        if (writeBuffer != null) {
+            return writeBuffer.mergeNode(name, type, createAttributes, matchAttributes);
+        }
+        List <String> onCreateItems = new ArrayList <>();
+        List <String> onCreateLabels = getLabels(createAttributes);
+        if (type.isType()) {
+            onCreateItems.add("n.simpleName = $simpleName");
+            onCreateLabels.add(TYPE_LABEL);
+        }
+        if (! onCreateLabels.isEmpty()) {
+            onCreateItems.add("n:" + String.join(":", onCreateLabels));
+        }
+        String onCreateAttributes = onCreateItems.isEmpty() ? "" : "ON CREATE SET " + String.join(", ", onCreateItems);
         String onMatchAttributes = matchAttributes.length == 0 ?
                 "" :
                 "ON MATCH SET n:" + Arrays.stream(matchAttributes)
@@ -166,16 +337,8 @@ public class NeoGraph {
         return submitRequest(String.format("MERGE (n:%s {name: $name}) %s %s RETURN (n)",
                 type.toString(),
                 onCreateAttributes,
-                onMatchAttributes), "name", name)
-                .list().get(0).get(0).asNode();
-    }
-
-    public Node getOrCreateNode(String name, EntityType type) {
-        return getOrCreateNode(name, type, new EntityAttribute[]{}, new EntityAttribute[]{});
-    }
-
-    public Node getOrCreateNode(String name, EntityType type, EntityAttribute[] attributes) {
-        return getOrCreateNode(name, type, attributes, attributes);
+                onMatchAttributes), "name", name, "simpleName", getSimpleName(name))
+                .get(0).get(0).asNode();
     }
 
     /**
@@ -184,7 +347,13 @@ public class NeoGraph {
      * @param node1 source node
      * @param node2 target node
      */
+    @Override
     public void linkTwoNodes(Node node1, Node node2, RelationType type) {
+        variantCounts.relationshipCreated(node1, node2, type);
+        if (writeBuffer != null) {
+            writeBuffer.linkNodes(node1, node2, type);
+            return;
+        }
         submitRequest(String.format("MATCH(a)\n" +
                 "WHERE ID(a)=$aId\n" +
                 "WITH a\n" +
@@ -212,11 +381,10 @@ public class NeoGraph {
      * @return
      */
     public Map <String, Long> getNbOverloads(String parent) {
-        return submitRequest(String.format(
+        return submitReadRequest(String.format(
                 "MATCH (:CLASS { name: '%s' })-->(a:METHOD) MATCH (:CLASS { name: '%s' })-->(b:METHOD)\n" +
                         "WHERE a.name = b.name AND ID(a) <> ID(b)\n" +
                         "return DISTINCT a.name, count(DISTINCT a)", parent, parent))
-                .list()
                 .stream()
                 .map(Record::asMap)
                 .collect(Collectors.toMap(
@@ -225,15 +393,43 @@ public class NeoGraph {
 
     }
 
-    public void detectVPsAndVariants(){
-        setMethodVPs();
-        setMethodVariants();
-        setConstructorVPs();
-        setConstructorVariants();
-        setNbVariantsProperty();
-        setVPLabels();
-        setMethodLevelVPLabels();
-        setVariantsLabels();
+    /**
+     * Detects the VPs and variants with the {@link DetectionProcedure} when it is installed on the server,
+     * the graph then being visited once inside the database instead of running a statement per step.
+     */
+    @Override
+    public void detectVPsAndVariants() {
+        if (isDetectionProcedureInstalled()) {
+            callDetectionProcedure(true);
+        } else {
+            GraphStore.super.detectVPsAndVariants();
+        }
+    }
+
+    @Override
+    public void detectVPsAndVariants(Collection <ClassOverloads> overloads) {
+        if (isDetectionProcedureInstalled()) {
+            setOverloads(overloads);
+            callDetectionProcedure(false);
+        } else {
+            GraphStore.super.detectVPsAndVariants(overloads);
+        }
+    }
+
+    /**
+     * @return true if the procedures jar is in the plugins of the server, checked only once
+     */
+    public boolean isDetectionProcedureInstalled() {
+        if (detectionProcedureInstalled == null) {
+            detectionProcedureInstalled = submitReadRequest("CALL dbms.procedures() YIELD name WHERE name = $name RETURN count(*)", "name", DetectionProcedure.NAME)
+                    .get(0).get(0).asInt() > 0;
+        }
+        return detectionProcedureInstalled;
+    }
+
+    private void callDetectionProcedure(boolean countOverloads) {
+        clearNodeCache(false);
+        submitRequest(String.format("CALL %s($countOverloads)", DetectionProcedure.NAME), "countOverloads", countOverloads);
     }
 
     /**
@@ -250,7 +446,9 @@ public class NeoGraph {
      * This is independent of the numbers of overloads for each method.
      * If no method is overloaded, the property is set to 0.
      */
+    @Override
     public void setMethodVPs() {
+        clearNodeCache(false);
         submitRequest("MATCH (c:CLASS)-->(a:METHOD) MATCH (c:CLASS)-->(b:METHOD)\n" +
                 "WHERE a.name = b.name AND ID(a) <> ID(b)\n" +
                 "WITH count(DISTINCT a.name) AS cnt, c\n" +
@@ -273,7 +471,9 @@ public class NeoGraph {
      * Two methods are overloaded with respectively 3 and 2 overloads, therefore the value returned will be 5.
      * If no method is overloaded, the property is set to 0.
      */
+    @Override
     public void setMethodVariants() {
+        clearNodeCache(false);
         submitRequest("MATCH (c:CLASS)-->(a:METHOD) MATCH (c:CLASS)-->(b:METHOD)\n" +
                 "WHERE a.name = b.name AND ID(a) <> ID(b)\n" +
                 "WITH count(DISTINCT a) AS cnt, c\n" +
@@ -288,7 +488,9 @@ public class NeoGraph {
      * If there is more than a constructor, this means that the constructor is overloaded, hence the value is 1.
      * If there is no overload (i.e. there is 0 or 1 constructor), the property is set to 0.
      */
+    @Override
     public void setConstructorVPs() {
+        clearNodeCache(false);
         submitRequest("MATCH (c:CLASS)-->(a:CONSTRUCTOR)\n" +
                 "WITH count(a.name) AS cnt, c\n" +
                 "SET c.constructorVPs = CASE WHEN cnt > 1 THEN 1 ELSE 0 END");
@@ -300,7 +502,9 @@ public class NeoGraph {
      * Sets the number of overloads of the constructor in the class.
      * If there is no overload (i.e. there is 0 or 1 constructor), the property is set to 0.
      */
+    @Override
     public void setConstructorVariants() {
+        clearNodeCache(false);
         submitRequest("MATCH (c:CLASS)-->(a:CONSTRUCTOR)\n" +
                 "WITH count(a.name) AS cnt, c\n" +
                 "SET c.constructorVariants = CASE WHEN cnt > 1 THEN cnt ELSE 0 END");
@@ -309,10 +513,37 @@ public class NeoGraph {
                 "SET c.constructorVariants = 0");
     }
 
+    /**
+     * Sets the overload properties of all the classes in a single statement, the classes without overload getting 0.
+     */
+    @Override
+    public void setOverloads(Collection <ClassOverloads> overloads) {
+        clearNodeCache(false);
+        List <Map <String, Object>> rows = overloads.stream()
+                .map(classOverloads -> {
+                    Map <String, Object> row = new HashMap <>();
+                    row.put("id", classOverloads.getClassNode().id());
+                    row.put("methodVPs", classOverloads.getMethodVPs());
+                    row.put("methodVariants", classOverloads.getMethodVariants());
+                    row.put("constructorVPs", classOverloads.getConstructorVPs());
+                    row.put("constructorVariants", classOverloads.getConstructorVariants());
+                    return row;
+                })
+                .collect(Collectors.toList());
+        submitRequest("UNWIND $rows AS row\n" +
+                "MATCH (c) WHERE ID(c) = row.id\n" +
+                "SET c.methodVPs = row.methodVPs, c.methodVariants = row.methodVariants, c.constructorVPs = row.constructorVPs, c.constructorVariants = row.constructorVariants", "rows", rows);
+        submitRequest("MATCH (c:CLASS)\n" +
+                "WHERE NOT EXISTS(c.methodVPs)\n" +
+                "SET c.methodVPs = 0, c.methodVariants = 0, c.constructorVPs = 0, c.constructorVariants = 0");
+    }
+
     /**
      * Creates for all class and interfaces nodes a property classVariants expressing the number of subclasses it contains.
      */
+    @Override
     public void setNbVariantsProperty() {
+        clearNodeCache(false);
         submitRequest("MATCH (c)-[:EXTENDS|:IMPLEMENTS]->(sc:CLASS) WITH count(sc) AS nbVar, c SET c.classVariants = nbVar");
         submitRequest("MATCH (c) WHERE ((c:CLASS OR c:INTERFACE) AND NOT EXISTS (c.classVariants)) SET c.classVariants = 0");
     }
@@ -325,29 +556,57 @@ public class NeoGraph {
      * - has class or method level variants (subclasses / implementations or methods / constructors overloads)
      * - has a design pattern.
      */
+    @Override
     public void setVPLabels() {
+        clearNodeCache(false);
         submitRequest(String.format("MATCH (c) WHERE (NOT c:OUT_OF_SCOPE) AND (c:INTERFACE OR (c:CLASS AND c:ABSTRACT) OR (%s) OR (EXISTS(c.classVariants) AND c.classVariants > 0)) SET c:%s",
                 getClauseForHavingDesignPattern("c"),
                 EntityAttribute.VP));
     }
 
+    @Override
     public void setMethodLevelVPLabels() {
+        clearNodeCache(false);
         submitRequest(String.format("MATCH (c) WHERE (NOT c:OUT_OF_SCOPE) AND (c.methodVPs > 0 OR c.constructorVPs > 0) SET c:%s",
                 EntityAttribute.METHOD_LEVEL_VP));
     }
 
+    @Override
     public void setVariantsLabels() {
+        clearNodeCache(false);
         submitRequest(String.format("MATCH (sc:VP)-[:EXTENDS|:IMPLEMENTS]->(c) WHERE c:CLASS OR c:INTERFACE SET c:%s",
                 EntityAttribute.VARIANT));
     }
 
+    @Override
     public void addLabelToNode(Node node, String label) {
-        submitRequest(String.format("MATCH (n) WHERE ID(n) = $id SET n:%s RETURN (n)", label), "id", node.id());
+        Node labeledNode = submitRequest(String.format("MATCH (n) WHERE ID(n) = $id SET n:%s RETURN (n)", label), "id", node.id())
+                .get(0).get(0).asNode();
+        if (nodeCache != null) {
+            nodeCache.replace(labeledNode.get("name").asString(), labeledNode);
+        }
+    }
+
+    /**
+     * Adds the label to all the nodes in a single statement.
+     */
+    @Override
+    public void addLabelToNodes(Collection <Node> nodes, String label) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        List <Long> ids = nodes.stream().map(Node::id).collect(Collectors.toList());
+        List <Node> labeledNodes = submitRequest(String.format("UNWIND $ids AS id MATCH (n) WHERE ID(n) = id SET n:%s RETURN (n)", label), "ids", ids)
+                .stream().map(record -> record.get(0).asNode()).collect(Collectors.toList());
+        if (nodeCache != null) {
+            labeledNodes.forEach(labeledNode -> nodeCache.replace(labeledNode.get("name").asString(), labeledNode));
+        }
     }
 
+    @Override
     public int getNbNodesHavingDesignPatterns() {
-        return submitRequest(String.format("MATCH (n) WHERE %s RETURN COUNT(n)", getClauseForHavingDesignPattern("n")))
-                .list().get(0).get(0).asInt();
+        return submitReadRequest(String.format("MATCH (n) WHERE %s RETURN COUNT(n)", getClauseForHavingDesignPattern("n")))
+                .get(0).get(0).asInt();
     }
 
     private String getClauseForHavingDesignPattern(String n) {
@@ -358,77 +617,44 @@ public class NeoGraph {
         return Arrays.stream(types).map(nodeType -> nodeName + ":" + nodeType.toString()).collect(Collectors.joining(" OR "));
     }
 
+    @Override
     public void writeGraphFile(String filePath) {
-        writeToFile(filePath, generateJsonGraph());
+        writeJsonGraph(filePath, false);
     }
 
+    @Override
     public void writeVPGraphFile(String filePath) {
-        writeToFile(filePath, generateVPJsonGraph());
-    }
-
-    public void writeStatisticsFile(String filePath) {
-        writeToFile(filePath, generateStatisticsJson());
-    }
-
-    public void writeToFile(String filePath, String content) {
-        Path path = Paths.get(filePath);
-        try {
-            if (path.toFile().getParentFile().exists() || (path.toFile().getParentFile().mkdirs() && path.toFile().createNewFile())) {
-                try (BufferedWriter bw = Files.newBufferedWriter(path)) {
-                    bw.write(content);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        writeJsonGraph(filePath, true);
     }
 
-
     /**
-     * Get number of subclasses of a class or implementations of an interface
+     * Get number of subclasses of a class or implementations of an interface.
+     * The counts are maintained in memory as the relationships are created, the graph being queried only the first time.
      *
      * @param node Node corresponding to the class
      * @return Number of subclasses or implementations
      */
+    @Override
     public int getNbVariants(Node node) {
-        return submitRequest("MATCH (c)-[:EXTENDS|:IMPLEMENTS]->(c2:CLASS) " +
-                "WHERE ID(c) = $id " +
-                "RETURN count(c2)", "id", node.id())
-                .list().get(0).get(0).asInt();
+        return variantCounts.get(node);
     }
 
-    /**
-     * Get total number of variants.
-     * This corresponds to the number of variants at class and method level.
-     *
-     * @return Number of variants
-     */
-    public int getTotalNbVariants() {
-        return getNbClassLevelVariants() + getNbMethodLevelVariants();
+    private Map <Long, Integer> loadNbVariants() {
+        return submitReadRequest("MATCH (c)-[:EXTENDS|:IMPLEMENTS]->(c2:CLASS) RETURN ID(c), count(c2)")
+                .stream()
+                .collect(Collectors.toMap(record -> record.get(0).asLong(), record -> record.get(1).asInt()));
     }
 
-
     /**
      * Get number of variants at class level.
      * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface defined in the project.
      *
      * @return Number of class level variants
      */
+    @Override
     public int getNbClassLevelVariants() {
-        return submitRequest("MATCH (c:VARIANT) RETURN (COUNT(DISTINCT c))")
-                .list().get(0).get(0).asInt();
-    }
-
-    /**
-     * Get number of variants at class level.
-     * This corresponds to the number of concrete classes without a subclass and extending a class or implementing an interface.
-     *
-     * @return Number of class level variants
-     */
-    public int getNbMethodLevelVariants() {
-        return getNbMethodVariants() + getNbConstructorVariants();
+        return submitReadRequest("MATCH (c:VARIANT) RETURN (COUNT(DISTINCT c))")
+                .get(0).get(0).asInt();
     }
 
     /**
@@ -437,9 +663,10 @@ public class NeoGraph {
      *
      * @return Number of overloaded methods
      */
+    @Override
     public int getNbMethodVariants() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.methodVariants))")
-                .list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH (c:CLASS) RETURN (SUM(c.methodVariants))")
+                .get(0).get(0).asInt();
     }
 
     /**
@@ -448,9 +675,10 @@ public class NeoGraph {
      *
      * @return Number of constructor overloads
      */
+    @Override
     public int getNbConstructorVariants() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.constructorVariants))")
-                .list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH (c:CLASS) RETURN (SUM(c.constructorVariants))")
+                .get(0).get(0).asInt();
     }
 
     /**
@@ -458,9 +686,10 @@ public class NeoGraph {
      *
      * @return Number of overloaded constructors
      */
+    @Override
     public int getNbConstructorVPs() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.constructorVPs))")
-                .list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH (c:CLASS) RETURN (SUM(c.constructorVPs))")
+                .get(0).get(0).asInt();
     }
 
     /**
@@ -468,35 +697,13 @@ public class NeoGraph {
      *
      * @return Number of overloaded methods
      */
+    @Override
     public int getNbMethodVPs() {
-        return submitRequest("MATCH (c:CLASS) RETURN (SUM(c.methodVPs))")
-                .list().get(0).get(0).asInt();
-    }
-
-
-    /**
-     * Get total number of VPs.
-     * This corresponds to the number of VPs at class and method level.
-     *
-     * @return Number of VPs
-     */
-    public int getTotalNbVPs() {
-        return getNbClassLevelVPs() + getNbMethodLevelVPs();
+        return submitReadRequest("MATCH (c:CLASS) RETURN (SUM(c.methodVPs))")
+                .get(0).get(0).asInt();
     }
 
 
-    /**
-     * Get total number of method level VPs.
-     * These are :
-     * - overloaded methods
-     * - overloaded constructors
-     *
-     * @return Number of method level VPs
-     */
-    public int getNbMethodLevelVPs() {
-        return getNbMethodVPs() + getNbConstructorVPs();
-    }
-
     /**
      * Get total number of class level VPs.
      * These are :
@@ -506,9 +713,10 @@ public class NeoGraph {
      *
      * @return Number of class level VPs
      */
+    @Override
     public int getNbClassLevelVPs() {
-        return submitRequest("MATCH (c:VP) RETURN COUNT (DISTINCT c)")
-                .list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH (c:VP) RETURN COUNT (DISTINCT c)")
+                .get(0).get(0).asInt();
     }
 
     /**
@@ -518,71 +726,53 @@ public class NeoGraph {
      * @param childNode  destination node of the relationship
      * @return true if a relationship exists, false otherwise
      */
+    @Override
     public boolean relatedTo(Node parentNode, Node childNode) {
-        return submitRequest("MATCH(source) WHERE ID(source) = $idSource MATCH(dest) WHERE ID(dest) = $idDest RETURN EXISTS((source)-[]->(dest))", "idSource", parentNode.id(), "idDest", childNode.id())
-                .list().get(0).get(0).asBoolean();
-    }
-
-    private String generateJsonGraph() {
-        return String.format("{\"nodes\":[%s],\"links\":[%s]}", getNodesAsJson(false), getLinksAsJson(false));
+        return submitReadRequest("MATCH(source) WHERE ID(source) = $idSource MATCH(dest) WHERE ID(dest) = $idDest RETURN EXISTS((source)-[]->(dest))", "idSource", parentNode.id(), "idDest", childNode.id())
+                .get(0).get(0).asBoolean();
     }
 
-    private String generateVPJsonGraph() {
-        return String.format("{\"nodes\":[%s],\"links\":[%s]}", getNodesAsJson(true), getLinksAsJson(true));
-    }
-
-    private String getNodesAsJson(boolean onlyVPs) {
-        String request = onlyVPs ?
-                "MATCH (c) WHERE c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP RETURN collect({types:labels(c), name:c.name, methodVPs:c.methodVPs, constructorVPs:c.constructorVPs, methodVariants:c.methodVariants, constructorVariants:c.constructorVariants, classVariants:c.classVariants})" :
-                "MATCH (c) RETURN collect({types:labels(c), name:c.name, methodVPs:c.methodVPs, constructorVPs:c.constructorVPs, methodVariants:c.methodVariants, constructorVariants:c.constructorVariants})";
-        return submitRequest(request)
-                .list()
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
-    }
-
-    private String getLinksAsJson(boolean onlyVPs) {
-        String request = onlyVPs ?
-                "MATCH path = (c1:VP)-[r:EXTENDS|:IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})" :
-                "MATCH path = (c1)-[r:EXTENDS|:IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN collect({source:c1.name, target:c2.name, type:TYPE(r)})";
-        return submitRequest(request)
-                .list()
-                .get(0)
-                .get(0)
-                .asList(MapAccessor::asMap)
-                .stream()
-                .map(o -> new JSONObject(o).toString())
-                .collect(Collectors.joining(","));
+    /**
+     * Reads the classes and interfaces and the relationships between them in two streamed statements.
+     */
+    @Override
+    public TypeHierarchy getTypeHierarchy() {
+        TypeHierarchy hierarchy = new TypeHierarchy();
+        forEachRecord(String.format("MATCH (n:%s) RETURN ID(n), n.name, n:%s ORDER BY ID(n)", TYPE_LABEL, EntityType.CLASS),
+                record -> hierarchy.addType(record.get(0).asLong(), record.get(1).isNull() ? null : record.get(1).asString(), record.get(2).asBoolean()));
+        forEachRecord(String.format("MATCH (a:%s)-[:EXTENDS|:IMPLEMENTS]->(b:%s) RETURN ID(a), ID(b)", TYPE_LABEL, TYPE_LABEL),
+                record -> hierarchy.addInheritance(record.get(0).asLong(), record.get(1).asLong()));
+        return hierarchy;
     }
 
-    public String generateStatisticsJson() {
-        return new JSONObject()
-                .put("VPs", getTotalNbVPs())
-                .put("methodsVPs", getNbMethodVPs())
-                .put("constructorsVPs", getNbConstructorVPs())
-                .put("methodLevelVPs", getNbMethodLevelVPs())
-                .put("classLevelVPs", getNbClassLevelVPs())
-                .put("variants", getTotalNbVariants())
-                .put("methodsVariants", getNbMethodVariants())
-                .put("constructorsVariants", getNbConstructorVariants())
-                .put("methodLevelVariants", getNbMethodLevelVariants())
-                .put("classLevelVariants", getNbClassLevelVariants()).toString();
+    private void writeJsonGraph(String filePath, boolean onlyVPs) {
+        String nodesRequest = onlyVPs ?
+                "MATCH (c) WHERE c:VP OR c:VARIANT OR c:METHOD_LEVEL_VP RETURN {types:[label IN labels(c) WHERE label <> 'TYPE'], name:c.name, methodVPs:c.methodVPs, constructorVPs:c.constructorVPs, methodVariants:c.methodVariants, constructorVariants:c.constructorVariants, classVariants:c.classVariants}" :
+                "MATCH (c) RETURN {types:[label IN labels(c) WHERE label <> 'TYPE'], name:c.name, methodVPs:c.methodVPs, constructorVPs:c.constructorVPs, methodVariants:c.methodVariants, constructorVariants:c.constructorVariants}";
+        String linksRequest = onlyVPs ?
+                "MATCH path = (c1:VP)-[r:EXTENDS|:IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN {source:c1.name, target:c2.name, type:TYPE(r)}" :
+                "MATCH path = (c1)-[r:EXTENDS|:IMPLEMENTS]->(c2) WHERE NONE(n IN nodes(path) WHERE n:OUT_OF_SCOPE) RETURN {source:c1.name, target:c2.name, type:TYPE(r)}";
+        try (JsonGraphWriter writer = new JsonGraphWriter(filePath)) {
+            forEachRecord(nodesRequest, record -> writer.writeNode(new JSONObject(record.get(0).asMap())));
+            forEachRecord(linksRequest, record -> writer.writeLink(new JSONObject(record.get(0).asMap())));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
+    @Override
     public int getNbNodes() {
-        return submitRequest("MATCH(n) RETURN count(*)").list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH(n) RETURN count(*)").get(0).get(0).asInt();
     }
 
+    @Override
     public int getNbRelationships() {
-        return submitRequest("MATCH (n)-[r]->() RETURN COUNT(r)").list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH (n)-[r]->() RETURN COUNT(r)").get(0).get(0).asInt();
     }
 
+    @Override
     public int getNbInheritanceRelationships() {
-        return submitRequest("MATCH (n)-[r:EXTENDS|:IMPLEMENTS]->() RETURN COUNT(r)").list().get(0).get(0).asInt();
+        return submitReadRequest("MATCH (n)-[r:EXTENDS|:IMPLEMENTS]->() RETURN COUNT(r)").get(0).get(0).asInt();
     }
 
     public void createClassesIndex() {
@@ -593,20 +783,307 @@ public class NeoGraph {
         submitRequest("CREATE INDEX ON :INTERFACE(name)");
     }
 
+    /**
+     * Indexes the names and simple names of all the classes and interfaces, used by the lookups of types whatever their kind.
+     */
+    public void createTypesIndex() {
+        submitRequest("CREATE INDEX ON :TYPE(name)");
+        submitRequest("CREATE INDEX ON :TYPE(simpleName)");
+    }
+
+    /**
+     * Loads the nodes and relationships written to CSV files, each file being read by a single LOAD CSV statement
+     * committing every {@value CSV_COMMIT_SIZE} rows, instead of sending a statement per node or batch of nodes.
+     * The files must be readable by the database: with a Neo4j server, they have to be in its import directory.
+     * <p>
+     * The nodes get a temporary label and an indexed identifier so that the relationships can find them,
+     * both being removed once the relationships are loaded.
+     *
+     * @param files   closed writer of the files
+     * @param baseUrl URL of the directory of the files as seen by the database, e.g. {@code file:///} for the import directory of the server
+     */
+    public void loadCsvFiles(CsvGraphWriter files, String baseUrl) {
+        flush();
+        commitTransaction();
+        String directoryUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        List <String> setItems = new ArrayList <>();
+        files.getStringProperties().forEach(property -> setItems.add(String.format("n.%s = row.`%s`", property, property)));
+        files.getLongProperties().forEach(property -> setItems.add(String.format("n.%s = toInteger(row.`%s`)", property, CsvGraphWriter.getLongColumn(property))));
+        runAutoCommitRequest(String.format("CREATE INDEX ON :%s(%s)", IMPORTED_LABEL, IMPORT_ID));
+        runAutoCommitRequest("CALL db.awaitIndexes()");
+        files.getNodeFiles().forEach((path, labels) -> runAutoCommitRequest(String.format("USING PERIODIC COMMIT %d\n" +
+                        "LOAD CSV WITH HEADERS FROM $url AS row\n" +
+                        "CREATE (n:%s:%s {%s: toInteger(row.`%s`)})\n" +
+                        "SET %s",
+                CSV_COMMIT_SIZE, IMPORTED_LABEL, String.join(":", labels), IMPORT_ID, CsvGraphWriter.ID, String.join(", ", setItems)),
+                "url", directoryUrl + path.getFileName()));
+        files.getRelationshipFiles().forEach((path, type) -> runAutoCommitRequest(String.format("USING PERIODIC COMMIT %d\n" +
+                        "LOAD CSV WITH HEADERS FROM $url AS row\n" +
+                        "MATCH (a:%s {%s: toInteger(row.`%s`)})\n" +
+                        "MATCH (b:%s {%s: toInteger(row.`%s`)})\n" +
+                        "CREATE (a)-[:%s]->(b)",
+                CSV_COMMIT_SIZE, IMPORTED_LABEL, IMPORT_ID, CsvGraphWriter.START_ID, IMPORTED_LABEL, IMPORT_ID, CsvGraphWriter.END_ID, type),
+                "url", directoryUrl + path.getFileName()));
+        // The temporary label and property are removed by batches to bound the size of the transactions
+        String removeRequest = String.format("MATCH (n:%s) WITH n LIMIT %d REMOVE n:%s, n.%s RETURN count(n)",
+                IMPORTED_LABEL, CSV_COMMIT_SIZE, IMPORTED_LABEL, IMPORT_ID);
+        int nbRemoved;
+        do {
+            nbRemoved = runAutoCommitRequest(removeRequest).get(0).get(0).asInt();
+        } while (nbRemoved > 0);
+        runAutoCommitRequest(String.format("DROP INDEX ON :%s(%s)", IMPORTED_LABEL, IMPORT_ID));
+        clearNodeCache(false);
+        variantCounts.clear(false);
+    }
+
     /**
      * Deletes all nodes and relationships in the graph.
      */
+    @Override
     public void deleteGraph() {
         submitRequest("MATCH (n) DETACH DELETE (n)");
+        clearNodeCache(true);
+        variantCounts.clear(true);
+    }
+
+    /**
+     * Sends the buffered node and relationship creations to the database.
+     */
+    public void flush() {
+        if (writeBuffer != null) {
+            writeBuffer.flush();
+        }
+    }
+
+    /**
+     * Sets the number of statements executed in a transaction of a unit of work before committing it.
+     * With a value of 0, each statement of a unit of work is executed in its own transaction.
+     */
+    public void setCommitInterval(int commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Sets the maximum number of names whose nodes are kept in the client-side cache.
+     * The cache answers {@link #getNode}, {@link #getClassNode}, {@link #getInterfaceNode} and {@link #getOrCreateNode}
+     * without querying the database. With a value of 0, the cache is disabled.
+     * As the nodes already in the graph are unknown to the cache, it only answers for names missing from the graph if the graph is empty.
+     */
+    public void setNodeCacheSize(int nodeCacheSize) {
+        nodeCache = nodeCacheSize > 0 ? new NodeCache(nodeCacheSize) : null;
+        clearNodeCache(getNbNodes() == 0);
+    }
+
+    public long getNodeCacheHits() {
+        return nodeCache == null ? 0 : nodeCache.getNbHits();
+    }
+
+    public long getNodeCacheMisses() {
+        return nodeCache == null ? 0 : nodeCache.getNbMisses();
+    }
+
+    /**
+     * Returns the cached nodes having this name, or null if the database has to be queried.
+     */
+    private List <NodeCache.CachedNode> getCachedNodes(String name) {
+        return nodeCache == null ? null : nodeCache.get(name);
+    }
+
+    private void addToNodeCache(String name, Node node, Iterable <String> labels) {
+        if (nodeCache != null) {
+            nodeCache.add(name, node, labels);
+        }
+    }
+
+    /**
+     * Empties the cache after a statement modifying several nodes.
+     *
+     * @param graphEmpty true if the graph does not contain any node anymore
+     */
+    private void clearNodeCache(boolean graphEmpty) {
+        if (nodeCache != null) {
+            nodeCache.clear(graphEmpty);
+        }
+    }
+
+    private Object getNameLock(Object name) {
+        return nameLocks[Math.floorMod(Objects.hashCode(name), nameLocks.length)];
+    }
+
+    private static Optional <Node> getFirstCachedNodeWithLabel(List <NodeCache.CachedNode> cachedNodes, String label) {
+        return cachedNodes.stream().filter(node -> node.hasLabel(label)).findFirst().map(NodeCache.CachedNode::getNode);
     }
 
-    private StatementResult submitRequest(String request, Object... parameters) {
-        try (Session session = driver.session()) {
-            return session.writeTransaction(tx -> tx.run(request, parameters(parameters)));
+    /**
+     * Returns the properties of a new node, the classes and interfaces also getting their simple name
+     * so that {@link #getNodeWithNameInPackage(String, String)} can find them with an index lookup.
+     */
+    static Map <String, Object> getTypeProperties(String name, Collection <String> labels) {
+        Map <String, Object> properties = new HashMap <>();
+        properties.put("name", name);
+        if (name != null && isType(labels)) {
+            properties.put(SIMPLE_NAME, getSimpleName(name));
         }
+        return properties;
+    }
+
+    static boolean isType(Collection <String> labels) {
+        return labels.contains(EntityType.CLASS.toString()) || labels.contains(EntityType.INTERFACE.toString());
     }
 
-    public void closeDriver() {
+    /**
+     * @return the last component of the name, e.g. {@code Shape} for {@code org.shapes.Shape}
+     */
+    private static String getSimpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static List <String> getLabels(EntityAttribute[] attributes) {
+        return Arrays.stream(attributes).map(NodeType::getString).collect(Collectors.toList());
+    }
+
+    /**
+     * Opens a session used by all the statements until the unit of work is closed.
+     * If a commit interval is set, the statements are also grouped in explicit transactions,
+     * committed every {@code commitInterval} statements and when the unit of work is closed.
+     * Opening a unit of work while another one is open has no effect, the statements being executed in the outer one.
+     * The threads writing to the graph during a unit of work share its session.
+     */
+    @Override
+    public UnitOfWork openUnitOfWork() {
+        synchronized (statementLock) {
+            if (session != null) {
+                return () -> {
+                };
+            }
+            session = driver.session();
+            return this::closeUnitOfWork;
+        }
+    }
+
+    private void closeUnitOfWork() {
+        try {
+            flush();
+        } finally {
+            synchronized (statementLock) {
+                try {
+                    commitTransaction();
+                } finally {
+                    session.close();
+                    session = null;
+                }
+            }
+        }
+    }
+
+    private void commitTransaction() {
+        if (transaction != null) {
+            try {
+                transaction.success();
+            } finally {
+                transaction.close();
+                transaction = null;
+            }
+        }
+    }
+
+    private List <Record> submitRequest(String request, Object... parameters) {
+        flush();
+        return runRequest(request, parameters(parameters));
+    }
+
+    private List <Record> submitReadRequest(String request, Object... parameters) {
+        flush();
+        return runRequest(request, parameters(parameters), AccessMode.READ);
+    }
+
+    /**
+     * Executes a read request and passes its records to the consumer one at a time, as they are received from the database.
+     * The other threads cannot execute statements until all the records have been consumed.
+     */
+    private void forEachRecord(String request, Consumer <Record> consumer) {
+        flush();
+        synchronized (statementLock) {
+            if (session != null && commitInterval > 0) {
+                runStatement(request, parameters(), AccessMode.READ).forEachRemaining(consumer);
+                return;
+            }
+            // Auto-commit statements are not buffered by the driver, contrary to the results of transaction functions
+            Session requestSession = session != null ? session : driver.session(AccessMode.READ);
+            try {
+                requestSession.run(request).forEachRemaining(consumer);
+            } finally {
+                if (requestSession != session) {
+                    requestSession.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a request in an auto-commit transaction, as needed by USING PERIODIC COMMIT, and returns all its records.
+     */
+    private List <Record> runAutoCommitRequest(String request, Object... parameters) {
+        synchronized (statementLock) {
+            Session requestSession = session != null ? session : driver.session();
+            try {
+                return requestSession.run(request, parameters(parameters)).list();
+            } finally {
+                if (requestSession != session) {
+                    requestSession.close();
+                }
+            }
+        }
+    }
+
+    private List <Record> runRequest(String request, Value parameters) {
+        return runRequest(request, parameters, AccessMode.WRITE);
+    }
+
+    /**
+     * Executes a request and reads all its records.
+     * As the session and the transaction of a unit of work cannot be used by several threads at once,
+     * the requests of the threads sharing the graph are executed one at a time, each one releasing the session once its result has been read.
+     */
+    private List <Record> runRequest(String request, Value parameters, AccessMode accessMode) {
+        synchronized (statementLock) {
+            return runStatement(request, parameters, accessMode).list();
+        }
+    }
+
+    private StatementResult runStatement(String request, Value parameters, AccessMode accessMode) {
+        if (session == null) {
+            try (Session session = driver.session(accessMode)) {
+                return runInTransaction(session, request, parameters, accessMode);
+            }
+        }
+        if (commitInterval <= 0) {
+            return runInTransaction(session, request, parameters, accessMode);
+        }
+        // The transaction is committed before the next statement, once the result of the last one has been used
+        if (transaction != null && nbStatementsInTransaction >= commitInterval) {
+            commitTransaction();
+        }
+        if (transaction == null) {
+            transaction = session.beginTransaction();
+            nbStatementsInTransaction = 0;
+        }
+        nbStatementsInTransaction++;
+        return transaction.run(request, parameters);
+    }
+
+    private static StatementResult runInTransaction(Session session, String request, Value parameters, AccessMode accessMode) {
+        return accessMode == AccessMode.READ ?
+                session.readTransaction(tx -> tx.run(request, parameters)) :
+                session.writeTransaction(tx -> tx.run(request, parameters));
+    }
+
+    @Override
+    public void close() {
+        flush();
+        synchronized (statementLock) {
+            commitTransaction();
+        }
         driver.close();
     }
 
@@ -0,0 +1,239 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the nodes of a {@link NeoGraph}, by name.
+ * <p>
+ * An entry contains all the nodes having the name, in their creation order, with their labels.
+ * The least recently used entries are evicted when the cache is full.
+ * <p>
+ * The cache is complete when it has seen all the nodes created in the graph:
+ * a name missing from a complete cache is not in the graph, and the nodes created are added to the cache.
+ * It stops being complete when an entry is evicted, the names missing from the cache then having to be looked up in the graph.
+ * <p>
+ * The names having no node are not stored as entries, so that the lookups of names missing from the graph,
+ * e.g. of the JDK types, do not evict the nodes of the graph. While the cache is complete, they do not need to be stored.
+ * Otherwise, the names found missing from the graph are kept apart, in a set of at most {@code maxSize} names emptied when it is full.
+ * <p>
+ * The names are also indexed by their last component, e.g. {@code Shape} for {@code org.shapes.Shape},
+ * so that a complete cache can find the types of a package having a given simple name.
+ * <p>
+ * The cache can be used by several threads at once. The lists of nodes it returns are copied when a node is added to them,
+ * so that they can be read while another thread adds a node having the same name.
+ */
+class NodeCache {
+
+    private final int maxSize;
+    private final Map <String, List <CachedNode>> entries;
+    private final Set <String> missingNames = new HashSet <>();
+    private final Map <String, Set <String>> namesBySimpleName = new HashMap <>();
+    private boolean complete = false;
+    private final LongAdder nbHits = new LongAdder();
+    private final LongAdder nbMisses = new LongAdder();
+
+    NodeCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap <String, List <CachedNode>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry <String, List <CachedNode>> eldest) {
+                if (size() > NodeCache.this.maxSize) {
+                    complete = false;
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the nodes having this name, or null if they have to be looked up in the graph.
+     */
+    synchronized List <CachedNode> get(String name) {
+        List <CachedNode> nodes = entries.get(name);
+        if (nodes == null && (complete || missingNames.contains(name))) {
+            nodes = Collections.emptyList();
+        }
+        if (nodes == null) {
+            nbMisses.increment();
+        } else {
+            nbHits.increment();
+        }
+        return nodes;
+    }
+
+    /**
+     * Stores the nodes having this name, as found in the graph.
+     */
+    synchronized void put(String name, List <CachedNode> nodes) {
+        if (nodes.isEmpty()) {
+            if (missingNames.size() >= maxSize) {
+                missingNames.clear();
+            }
+            missingNames.add(name);
+            return;
+        }
+        entries.put(name, new CopyOnWriteArrayList <>(nodes));
+        index(name);
+    }
+
+    /**
+     * Adds a node which has just been created to the nodes having its name.
+     */
+    synchronized void add(String name, Node node, Iterable <String> labels) {
+        List <CachedNode> nodes = entries.get(name);
+        if (nodes == null && (missingNames.remove(name) || complete)) {
+            nodes = new CopyOnWriteArrayList <>();
+            entries.put(name, nodes);
+        }
+        if (nodes != null) {
+            nodes.add(new CachedNode(node, labels));
+            index(name);
+        }
+    }
+
+    private void index(String name) {
+        if (name != null) {
+            namesBySimpleName.computeIfAbsent(getSimpleName(name), key -> new HashSet <>()).add(name);
+        }
+    }
+
+    private void unindex(String name) {
+        if (name != null) {
+            Set <String> names = namesBySimpleName.get(getSimpleName(name));
+            if (names != null) {
+                names.remove(name);
+                if (names.isEmpty()) {
+                    namesBySimpleName.remove(getSimpleName(name));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes whose name is in the package, possibly in a subpackage or in an enclosing type, and ends with the simple name,
+     * or null if they have to be looked up in the graph.
+     *
+     * @param simpleName  name of the type without its package, e.g. {@code Shape}
+     * @param packageName name of the package, e.g. {@code org.shapes}
+     */
+    synchronized List <CachedNode> getInPackage(String simpleName, String packageName) {
+        if (! complete) {
+            nbMisses.increment();
+            return null;
+        }
+        nbHits.increment();
+        String prefix = packageName + ".";
+        String suffix = "." + simpleName;
+        List <CachedNode> nodes = new ArrayList <>();
+        for (String name : namesBySimpleName.getOrDefault(getSimpleName(simpleName), Collections.emptySet())) {
+            if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                nodes.addAll(entries.get(name));
+            }
+        }
+        return nodes;
+    }
+
+    private static String getSimpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Replaces a cached node by its new version, for example after a change of its labels.
+     */
+    void replace(String name, Node node) {
+        // The ID is resolved before taking the lock, as resolving a pending node flushes the write buffer
+        long id = node.id();
+        synchronized (this) {
+            List <CachedNode> nodes = entries.get(name);
+            if (nodes != null) {
+                nodes.stream()
+                        .filter(cachedNode -> hasId(cachedNode.node, id))
+                        .forEach(cachedNode -> cachedNode.update(node, node.labels()));
+            }
+        }
+    }
+
+    /**
+     * A node still pending was created after the node of the given ID had been written,
+     * hence it is another node and its ID is not resolved, which would flush the write buffer.
+     */
+    private static boolean hasId(Node node, long id) {
+        return ! (node instanceof PendingNode && ! ((PendingNode) node).isResolved()) && node.id() == id;
+    }
+
+    /**
+     * Empties the cache.
+     *
+     * @param graphEmpty true if the graph does not contain any node, in which case the cache becomes complete
+     */
+    synchronized void clear(boolean graphEmpty) {
+        entries.clear();
+        missingNames.clear();
+        namesBySimpleName.clear();
+        complete = graphEmpty;
+    }
+
+    long getNbHits() {
+        return nbHits.sum();
+    }
+
+    long getNbMisses() {
+        return nbMisses.sum();
+    }
+
+    static class CachedNode {
+
+        private volatile Node node;
+        private final Set <String> labels = ConcurrentHashMap.newKeySet();
+
+        CachedNode(Node node, Iterable <String> labels) {
+            update(node, labels);
+        }
+
+        Node getNode() {
+            return node;
+        }
+
+        boolean hasLabel(String label) {
+            return labels.contains(label);
+        }
+
+        /**
+         * Replaces the node and adds the labels to the ones it is known to have.
+         */
+        void update(Node node, Iterable <String> labels) {
+            this.node = node;
+            labels.forEach(this.labels::add);
+        }
+
+    }
+
+}
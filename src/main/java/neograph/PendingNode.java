@@ -0,0 +1,125 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.driver.v1.util.Function;
+
+import java.util.Map;
+
+/**
+ * Node whose creation is buffered in a {@link WriteBuffer}.
+ * <p>
+ * The node is resolved when the buffer is flushed.
+ * Accessing its ID, labels or properties before that flushes the buffer, whichever thread created the node.
+ * A pending node is only equal to itself, so that putting it in a hash set or map does not flush the buffer:
+ * whether two nodes are the same node of the graph is found by comparing their IDs.
+ */
+public class PendingNode implements Node {
+
+    private final WriteBuffer writeBuffer;
+    private volatile Node node;
+
+    PendingNode(WriteBuffer writeBuffer) {
+        this.writeBuffer = writeBuffer;
+    }
+
+    void resolve(Node node) {
+        this.node = node;
+    }
+
+    public boolean isResolved() {
+        return node != null;
+    }
+
+    private Node getNode() {
+        if (node == null) {
+            writeBuffer.flush();
+        }
+        if (node == null) {
+            throw new IllegalStateException("The node has not been created by the last flush");
+        }
+        return node;
+    }
+
+    @Override
+    public long id() {
+        return getNode().id();
+    }
+
+    @Override
+    public Iterable <String> labels() {
+        return getNode().labels();
+    }
+
+    @Override
+    public boolean hasLabel(String label) {
+        return getNode().hasLabel(label);
+    }
+
+    @Override
+    public Iterable <String> keys() {
+        return getNode().keys();
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return getNode().containsKey(key);
+    }
+
+    @Override
+    public Value get(String key) {
+        return getNode().get(key);
+    }
+
+    @Override
+    public int size() {
+        return getNode().size();
+    }
+
+    @Override
+    public Iterable <Value> values() {
+        return getNode().values();
+    }
+
+    @Override
+    public <T> Iterable <T> values(Function <Value, T> mapFunction) {
+        return getNode().values(mapFunction);
+    }
+
+    @Override
+    public Map <String, Object> asMap() {
+        return getNode().asMap();
+    }
+
+    @Override
+    public <T> Map <String, T> asMap(Function <Value, T> mapFunction) {
+        return getNode().asMap(mapFunction);
+    }
+
+    @Override
+    public String toString() {
+        return node == null ? "pending node" : node.toString();
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.EntityType;
+
+import java.util.*;
+
+/**
+ * Snapshot of the EXTENDS and IMPLEMENTS relationships between the classes and interfaces of a graph,
+ * answering the subtype checks without querying the graph.
+ * <p>
+ * Each type gets a dense index in the order it is added, and its direct subtypes are stored in adjacency arrays
+ * built the first time the hierarchy is queried. The transitive closure of a type is computed as a bitset the first time it is needed.
+ * As {@link GraphStore#getOrCreateNode(String, EntityType)}, a lookup by name and kind gives the first type added with this name and kind.
+ */
+public class TypeHierarchy {
+
+    private final Map <String, Integer> classIndexes = new HashMap <>();
+    private final Map <String, Integer> interfaceIndexes = new HashMap <>();
+    private final Map <Long, Integer> indexesByNodeId = new HashMap <>();
+    private final BitSet classes = new BitSet();
+    private final List <int[]> inheritances = new ArrayList <>();
+    private int nbTypes = 0;
+    // Direct subtypes of the type of index i: subtypes[subtypesStart[i]] to subtypes[subtypesStart[i + 1] - 1]
+    private int[] subtypesStart;
+    private int[] subtypes;
+    private int[] nbVariants;
+    private Map <Integer, BitSet> closures;
+
+    /**
+     * @param nodeId  ID of the node of the type in the graph
+     * @param name    qualified name of the type
+     * @param isClass true for a class, false for an interface
+     */
+    public void addType(long nodeId, String name, boolean isClass) {
+        int index = nbTypes++;
+        indexesByNodeId.put(nodeId, index);
+        if (isClass) {
+            classes.set(index);
+        }
+        if (name != null) {
+            (isClass ? classIndexes : interfaceIndexes).putIfAbsent(name, index);
+        }
+        subtypes = null;
+    }
+
+    /**
+     * Adds an EXTENDS or IMPLEMENTS relationship, ignored if one of the nodes is not a type.
+     */
+    public void addInheritance(long parentNodeId, long childNodeId) {
+        Integer parent = indexesByNodeId.get(parentNodeId);
+        Integer child = indexesByNodeId.get(childNodeId);
+        if (parent != null && child != null) {
+            inheritances.add(new int[]{parent, child});
+            subtypes = null;
+        }
+    }
+
+    /**
+     * @return true if the child type extends or implements the parent type
+     */
+    public boolean isDirectSubtype(String parentName, EntityType parentType, String childName, EntityType childType) {
+        OptionalInt parent = getIndex(parentName, parentType);
+        OptionalInt child = getIndex(childName, childType);
+        if (! parent.isPresent() || ! child.isPresent()) {
+            return false;
+        }
+        compile();
+        for (int i = subtypesStart[parent.getAsInt()] ; i < subtypesStart[parent.getAsInt() + 1] ; i++) {
+            if (subtypes[i] == child.getAsInt()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the child type extends or implements the parent type, directly or through other types
+     */
+    public boolean isSubtype(String parentName, EntityType parentType, String childName, EntityType childType) {
+        OptionalInt parent = getIndex(parentName, parentType);
+        OptionalInt child = getIndex(childName, childType);
+        if (! parent.isPresent() || ! child.isPresent()) {
+            return false;
+        }
+        compile();
+        return closures.computeIfAbsent(parent.getAsInt(), this::computeClosure).get(child.getAsInt());
+    }
+
+    /**
+     * @return the number of classes directly extending or implementing the type, as {@link GraphStore#getNbVariants} gives
+     */
+    public int getNbVariants(String name, EntityType type) {
+        OptionalInt index = getIndex(name, type);
+        if (! index.isPresent()) {
+            return 0;
+        }
+        compile();
+        return nbVariants[index.getAsInt()];
+    }
+
+    private OptionalInt getIndex(String name, EntityType type) {
+        Integer index = (type == EntityType.INTERFACE ? interfaceIndexes : classIndexes).get(name);
+        return index == null ? OptionalInt.empty() : OptionalInt.of(index);
+    }
+
+    /**
+     * Builds the adjacency arrays from the relationships added.
+     */
+    private void compile() {
+        if (subtypes != null) {
+            return;
+        }
+        subtypesStart = new int[nbTypes + 1];
+        nbVariants = new int[nbTypes];
+        for (int[] inheritance : inheritances) {
+            subtypesStart[inheritance[0] + 1]++;
+            if (classes.get(inheritance[1])) {
+                nbVariants[inheritance[0]]++;
+            }
+        }
+        for (int i = 0 ; i < nbTypes ; i++) {
+            subtypesStart[i + 1] += subtypesStart[i];
+        }
+        subtypes = new int[inheritances.size()];
+        int[] next = Arrays.copyOf(subtypesStart, nbTypes);
+        for (int[] inheritance : inheritances) {
+            subtypes[next[inheritance[0]]++] = inheritance[1];
+        }
+        closures = new HashMap <>();
+    }
+
+    /**
+     * @return the types reachable from the type through one or more relationships
+     */
+    private BitSet computeClosure(int type) {
+        BitSet closure = new BitSet(nbTypes);
+        Deque <Integer> toVisit = new ArrayDeque <>();
+        toVisit.push(type);
+        while (! toVisit.isEmpty()) {
+            int current = toVisit.pop();
+            for (int i = subtypesStart[current] ; i < subtypesStart[current + 1] ; i++) {
+                if (! closure.get(subtypes[i])) {
+                    closure.set(subtypes[i]);
+                    toVisit.push(subtypes[i]);
+                }
+            }
+        }
+        return closure;
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Number of variants of the nodes of a {@link NeoGraph}, i.e. the number of EXTENDS and IMPLEMENTS relationships going to a class.
+ * <p>
+ * The counts are loaded from the graph the first time one is asked for, then kept up to date with the relationships created.
+ * As buffered nodes only get an ID when the buffer is flushed, the new relationships are counted when a count is asked for.
+ * The relationships can be created by several threads at once.
+ */
+class VariantCounts {
+
+    private final Supplier <Map <Long, Integer>> loader;
+    private Map <Long, Integer> counts;
+    private final List <Node[]> pendingRelationships = new ArrayList <>();
+
+    /**
+     * @param loader returns the number of variants of each node of the graph having variants, by node ID
+     */
+    VariantCounts(Supplier <Map <Long, Integer>> loader) {
+        this.loader = loader;
+    }
+
+    synchronized void relationshipCreated(Node source, Node target, RelationType type) {
+        if (counts != null && (type == RelationType.EXTENDS || type == RelationType.IMPLEMENTS)) {
+            pendingRelationships.add(new Node[]{source, target});
+        }
+    }
+
+    int get(Node node) {
+        // The IDs and labels of the nodes are resolved before taking the lock, as resolving a pending node flushes the write buffer
+        long id = node.id();
+        List <Long> variantSources = new ArrayList <>();
+        for (Node[] relationship : takePendingRelationships()) {
+            if (relationship[1].hasLabel(EntityType.CLASS.toString())) {
+                variantSources.add(relationship[0].id());
+            }
+        }
+        synchronized (this) {
+            if (counts == null) {
+                counts = new HashMap <>(loader.get());
+            } else {
+                variantSources.forEach(source -> counts.merge(source, 1, Integer::sum));
+            }
+            return counts.getOrDefault(id, 0);
+        }
+    }
+
+    private synchronized List <Node[]> takePendingRelationships() {
+        List <Node[]> relationships = new ArrayList <>(pendingRelationships);
+        pendingRelationships.clear();
+        return relationships;
+    }
+
+    /**
+     * Forgets the counts, which will be loaded again from the graph.
+     *
+     * @param graphEmpty true if the graph does not contain any node, in which case no count needs to be loaded
+     */
+    synchronized void clear(boolean graphEmpty) {
+        counts = graphEmpty ? new HashMap <>() : null;
+        pendingRelationships.clear();
+    }
+
+}
@@ -0,0 +1,392 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package neograph;
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.NodeType;
+import neo4j_types.RelationType;
+import org.neo4j.driver.v1.Record;
+import org.neo4j.driver.v1.Value;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.neo4j.driver.v1.Values.parameters;
+
+/**
+ * Buffer of the node and relationship creations of a {@link NeoGraph}.
+ * <p>
+ * Instead of sending a statement for each node or relationship, the creations are kept in the buffer
+ * and sent by batches as {@code UNWIND $rows AS row ...} statements when the buffer is flushed.
+ * The buffer is flushed when it contains {@code batchSize} operations, before the graph executes any other statement,
+ * and when the ID of a {@link PendingNode} is needed.
+ * <p>
+ * The node operations are sent in the order they were added, each run of consecutive creations, or of consecutive merges
+ * sharing the same statement, being sent in a single statement.
+ * The nodes thus get the IDs they would get without the buffer, which matters as the lookups by name return the node having the lowest ID,
+ * and a MERGE always sees the nodes created before it.
+ * As the graph does not merge the nodes already in its cache, the runs are long.
+ * All the nodes are created before the relationships, which are then created in a single statement in the order they were added.
+ * <p>
+ * Each thread adds its operations to its own buffer, so that the threads writing to the graph do not wait for each other.
+ * A flush is done by one thread at a time, which sends the operations of all the threads, those of each thread in their order.
+ * Only the buffers holding operations are kept in the list of buffers to flush,
+ * a buffer leaving it when it is drained and coming back with its next operation,
+ * so that the buffers of the threads which stopped writing are not kept by the graph.
+ */
+class WriteBuffer {
+
+    private int batchSize;
+    private BiFunction <String, Value, List <Record>> statementRunner;
+    private final ThreadLocal <ThreadBuffer> threadBuffer = ThreadLocal.withInitial(ThreadBuffer::new);
+    private final Queue <ThreadBuffer> threadBuffers = new ConcurrentLinkedQueue <>();
+
+    /**
+     * @param batchSize       maximum number of operations kept in the buffer of a thread
+     * @param statementRunner function executing a statement with the given parameters and returning its records
+     */
+    WriteBuffer(int batchSize, BiFunction <String, Value, List <Record>> statementRunner) {
+        this.batchSize = batchSize;
+        this.statementRunner = statementRunner;
+    }
+
+    PendingNode createNode(Collection <String> labels, Map <String, Object> properties) {
+        NodeCreation creation = new NodeCreation(new PendingNode(this), labels, properties);
+        flushIfFull(threadBuffer.get().addNodeOperation(creation));
+        return creation.node;
+    }
+
+    PendingNode mergeNode(String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+        NodeMerge merge = new NodeMerge(new PendingNode(this), name, type, createAttributes, matchAttributes);
+        flushIfFull(threadBuffer.get().addNodeOperation(merge));
+        return merge.node;
+    }
+
+    void linkNodes(Node source, Node target, RelationType type) {
+        flushIfFull(threadBuffer.get().addRelationshipCreation(new RelationshipCreation(source, target, type)));
+    }
+
+    boolean isEmpty() {
+        return threadBuffers.stream().allMatch(ThreadBuffer::isEmpty);
+    }
+
+    private void flushIfFull(int nbOperations) {
+        if (nbOperations >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends all the buffered operations to the database and resolves the pending nodes.
+     */
+    synchronized void flush() {
+        if (isEmpty()) {
+            return;
+        }
+        List <RelationshipCreation> relationships = new ArrayList <>();
+        sendNodeOperations(drainBuffers(relationships));
+        // A relationship can involve a node created by another thread whose buffer registered again after having been drained.
+        // The buffers are drained again until all the nodes of the relationships are resolved,
+        // so that resolving their IDs does not start another flush.
+        while (relationships.stream().anyMatch(RelationshipCreation::hasPendingNode)) {
+            List <NodeOperation> operations = drainBuffers(relationships);
+            if (operations.isEmpty()) {
+                throw new IllegalStateException("A relationship involves a node which has not been buffered");
+            }
+            sendNodeOperations(operations);
+        }
+        sendRelationshipCreations(relationships);
+    }
+
+    /**
+     * Drains the buffers of all the threads.
+     *
+     * @param relationships list to which the relationship creations of the buffers are added
+     * @return the node operations of the buffers
+     */
+    private List <NodeOperation> drainBuffers(List <RelationshipCreation> relationships) {
+        List <NodeOperation> operations = new ArrayList <>();
+        threadBuffers.forEach(buffer -> buffer.drainTo(operations, relationships));
+        return operations;
+    }
+
+    /**
+     * Sends the node operations in their order, each run of consecutive operations sharing the same statement
+     * being sent in a single statement.
+     */
+    private void sendNodeOperations(List <NodeOperation> operations) {
+        List <NodeOperation> run = new ArrayList <>();
+        for (NodeOperation operation : operations) {
+            if (! run.isEmpty() && ! operation.isSentWith(run.get(0))) {
+                sendRun(run);
+                run = new ArrayList <>();
+            }
+            run.add(operation);
+        }
+        sendRun(run);
+    }
+
+    private void sendRun(List <NodeOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        List <Map <String, Object>> rows = new ArrayList <>();
+        for (int i = 0 ; i < operations.size() ; i++) {
+            Map <String, Object> row = operations.get(i).getRow();
+            row.put("index", i);
+            rows.add(row);
+        }
+        String statement = operations.get(0) instanceof NodeCreation ? getCreationStatement(operations) : ((NodeMerge) operations.get(0)).statement;
+        for (Record record : statementRunner.apply(statement, parameters("rows", rows))) {
+            operations.get(record.get("index").asInt()).node.resolve(record.get("n").asNode());
+        }
+    }
+
+    /**
+     * Creates the nodes in a single statement.
+     * As labels cannot be parameters, each label is set by a FOREACH clause only executed for the rows having it.
+     */
+    private static String getCreationStatement(List <NodeOperation> creations) {
+        String labelClauses = creations.stream()
+                .flatMap(creation -> ((NodeCreation) creation).labels.stream())
+                .distinct()
+                .map(label -> String.format("FOREACH (ignored IN CASE WHEN '%s' IN row.labels THEN [1] ELSE [] END | SET n:%s)\n", label, label))
+                .collect(Collectors.joining());
+        return "UNWIND $rows AS row\n" +
+                "CREATE (n)\n" +
+                "SET n = row.properties\n" +
+                labelClauses +
+                "RETURN row.index AS index, n";
+    }
+
+    /**
+     * Creates the relationships in a single statement, in the order they were added, like the nodes.
+     * As relationship types cannot be parameters, each relationship is created by the FOREACH clause of its type.
+     */
+    private void sendRelationshipCreations(List <RelationshipCreation> relationships) {
+        if (relationships.isEmpty()) {
+            return;
+        }
+        List <Map <String, Object>> rows = relationships.stream()
+                .map(relationship -> {
+                    Map <String, Object> row = new HashMap <>();
+                    row.put("source", relationship.source.id());
+                    row.put("target", relationship.target.id());
+                    row.put("type", relationship.type.toString());
+                    return row;
+                })
+                .collect(Collectors.toList());
+        String creationClauses = relationships.stream()
+                .map(relationship -> relationship.type)
+                .distinct()
+                .map(type -> String.format("FOREACH (ignored IN CASE WHEN row.type = '%s' THEN [1] ELSE [] END | CREATE (a)-[:%s]->(b))\n", type, type))
+                .collect(Collectors.joining());
+        statementRunner.apply("UNWIND $rows AS row\n" +
+                "MATCH (a) WHERE ID(a) = row.source\n" +
+                "MATCH (b) WHERE ID(b) = row.target\n" +
+                creationClauses, parameters("rows", rows));
+    }
+
+    /**
+     * Sets the attributes of the merged node when it is created, as well as the simple name and TYPE label of the classes and interfaces.
+     */
+    private static String getOnCreateClause(EntityType type, EntityAttribute[] createAttributes) {
+        List <String> items = new ArrayList <>();
+        String labelsClause = getLabelsClause(createAttributes);
+        if (type.isType()) {
+            items.add("n.simpleName = row.simpleName");
+            labelsClause += ":" + NeoGraph.TYPE_LABEL;
+        }
+        if (! labelsClause.isEmpty()) {
+            items.add("n" + labelsClause);
+        }
+        return items.isEmpty() ? "" : "ON CREATE SET " + String.join(", ", items);
+    }
+
+    private static String getLabelsClause(NodeType[] types) {
+        return Arrays.stream(types).map(type -> ":" + type.getString()).collect(Collectors.joining());
+    }
+
+    /**
+     * Returns the part of the name following the last dot, as the lookups in a package match on it.
+     */
+    private static String getSimpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Operations of a thread, only shared with the thread flushing the buffer.
+     */
+    private class ThreadBuffer {
+
+        private List <NodeOperation> nodeOperations = new ArrayList <>();
+        private List <RelationshipCreation> relationshipCreations = new ArrayList <>();
+        private boolean registered = false;
+
+        /**
+         * @return the number of operations in the buffer
+         */
+        synchronized int addNodeOperation(NodeOperation operation) {
+            register();
+            nodeOperations.add(operation);
+            return nodeOperations.size() + relationshipCreations.size();
+        }
+
+        synchronized int addRelationshipCreation(RelationshipCreation relationship) {
+            register();
+            relationshipCreations.add(relationship);
+            return nodeOperations.size() + relationshipCreations.size();
+        }
+
+        synchronized boolean isEmpty() {
+            return nodeOperations.isEmpty() && relationshipCreations.isEmpty();
+        }
+
+        /**
+         * Moves the operations of the buffer to the lists and removes the buffer, now empty, from the buffers to flush.
+         */
+        synchronized void drainTo(List <NodeOperation> operations, List <RelationshipCreation> relationships) {
+            operations.addAll(nodeOperations);
+            relationships.addAll(relationshipCreations);
+            nodeOperations = new ArrayList <>();
+            relationshipCreations = new ArrayList <>();
+            threadBuffers.remove(this);
+            registered = false;
+        }
+
+        /**
+         * Adds the buffer to the buffers to flush before its first operation since it was last drained.
+         */
+        private void register() {
+            if (! registered) {
+                threadBuffers.add(this);
+                registered = true;
+            }
+        }
+
+    }
+
+    private abstract static class NodeOperation {
+
+        final PendingNode node;
+
+        NodeOperation(PendingNode node) {
+            this.node = node;
+        }
+
+        abstract Map <String, Object> getRow();
+
+        /**
+         * Checks whether the operation is sent by the same statement as another one.
+         */
+        abstract boolean isSentWith(NodeOperation operation);
+
+    }
+
+    private static class NodeCreation extends NodeOperation {
+
+        private final Collection <String> labels;
+        private final Map <String, Object> properties;
+
+        NodeCreation(PendingNode node, Collection <String> labels, Map <String, Object> properties) {
+            super(node);
+            this.labels = labels;
+            this.properties = properties;
+        }
+
+        @Override
+        Map <String, Object> getRow() {
+            Map <String, Object> row = new HashMap <>();
+            row.put("labels", new ArrayList <>(labels));
+            row.put("properties", properties);
+            return row;
+        }
+
+        @Override
+        boolean isSentWith(NodeOperation operation) {
+            return operation instanceof NodeCreation;
+        }
+
+    }
+
+    private static class NodeMerge extends NodeOperation {
+
+        private final String statement;
+        private final String name;
+
+        NodeMerge(PendingNode node, String name, EntityType type, EntityAttribute[] createAttributes, EntityAttribute[] matchAttributes) {
+            super(node);
+            this.statement = String.format("UNWIND $rows AS row\n" +
+                            "MERGE (n:%s {name: row.name}) %s %s\n" +
+                            "RETURN row.index AS index, n",
+                    type,
+                    getOnCreateClause(type, createAttributes),
+                    matchAttributes.length == 0 ? "" : "ON MATCH SET n" + getLabelsClause(matchAttributes));
+            this.name = name;
+        }
+
+        String getSimpleName() {
+            return WriteBuffer.getSimpleName(name);
+        }
+
+        @Override
+        Map <String, Object> getRow() {
+            Map <String, Object> row = new HashMap <>();
+            row.put("name", name);
+            row.put("simpleName", getSimpleName());
+            return row;
+        }
+
+        @Override
+        boolean isSentWith(NodeOperation operation) {
+            return operation instanceof NodeMerge && ((NodeMerge) operation).statement.equals(statement);
+        }
+
+    }
+
+    private static class RelationshipCreation {
+
+        private final Node source;
+        private final Node target;
+        private final RelationType type;
+
+        RelationshipCreation(Node source, Node target, RelationType type) {
+            this.source = source;
+            this.target = target;
+            this.type = type;
+        }
+
+        boolean hasPendingNode() {
+            return isPending(source) || isPending(target);
+        }
+
+        private static boolean isPending(Node node) {
+            return node instanceof PendingNode && ! ((PendingNode) node).isResolved();
+        }
+
+    }
+
+}
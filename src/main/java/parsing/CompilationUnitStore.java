@@ -0,0 +1,262 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Gives the visitors access to the compilation units of the analysed files, so that a file is read and parsed
+ * once for all the visitors instead of once per visitor.
+ * The visitors still go through all files one after the other, hence all classes are known in the database
+ * before the following visitors resolve class names.
+ * <p>
+ * As the ASTs of a big project do not fit in memory, at most maxRetainedUnits units are kept (a negative value means no limit).
+ * The decoded sources of the other files are spilled to disk, and these files are parsed again from there
+ * each time they are visited.
+ * <p>
+ * If batchSize is greater than 1, the files are parsed by batches of batchSize files sharing the same JDT environment.
+ * A batch is either entirely kept in memory or parsed again as a whole from the original files,
+ * so that a file always gets the same bindings whatever the visitor.
+ * <p>
+ * The files (or batches of files) are parsed ahead of the visitor by a pool of nbThreads workers,
+ * each of them using its own parser.
+ * The compilation units are still visited one after the other, in the order of the files.
+ */
+public class CompilationUnitStore implements Closeable {
+
+    private SourceParser parser;
+    private List <List <File>> partitions = new ArrayList <>();
+    private Map <File, Integer> partitionIndexes = new HashMap <>();
+    private boolean[] parsedPartitions;
+    private boolean batchMode;
+    private int maxRetainedUnits;
+    private String spillDirectoryParent;
+    private Path spillDirectory;
+    private ForkJoinPool pool;
+    private Map <File, CompilationUnit> retainedUnits = new HashMap <>();
+    private Map <File, CompilationUnit> currentUnits = new HashMap <>();
+    private boolean currentUnitsWithBodies = true;
+    private Map <File, Path> spilledSources = new HashMap <>();
+    private Map <File, char[]> decodedSources = new ConcurrentHashMap <>();
+    private int nbSpilledUnits = 0;
+
+    public CompilationUnitStore(SourceParser parser, List <File> files, int batchSize, int maxRetainedUnits, String spillDirectoryParent, int nbThreads) {
+        this.parser = parser;
+        this.batchMode = batchSize > 1;
+        int partitionSize = Math.max(batchSize, 1);
+        for (int i = 0 ; i < files.size() ; i += partitionSize) {
+            List <File> partition = files.subList(i, Math.min(i + partitionSize, files.size()));
+            for (File file : partition) {
+                partitionIndexes.put(file, partitions.size());
+            }
+            partitions.add(partition);
+        }
+        this.parsedPartitions = new boolean[partitions.size()];
+        this.maxRetainedUnits = maxRetainedUnits;
+        this.spillDirectoryParent = spillDirectoryParent;
+        this.pool = new ForkJoinPool(nbThreads > 0 ? nbThreads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public CompilationUnit getCompilationUnit(File file) throws IOException {
+        return getCompilationUnit(file, true);
+    }
+
+    /**
+     * @param withBodies whether the bodies of the methods are needed.
+     *                   If not, the files which are not retained in memory are parsed without them, which is faster.
+     *                   A file declaring types in the bodies of its methods or initializers is still parsed with them,
+     *                   so that the visitor finds the same types whatever the number of units retained.
+     *                   The files retained in memory are always parsed with the bodies of their methods.
+     */
+    public CompilationUnit getCompilationUnit(File file, boolean withBodies) throws IOException {
+        CompilationUnit compilationUnit = retainedUnits.get(file);
+        if (compilationUnit != null) {
+            return compilationUnit;
+        }
+        compilationUnit = currentUnits.get(file);
+        if (compilationUnit != null && (currentUnitsWithBodies || ! withBodies)) {
+            return compilationUnit;
+        }
+        parseAhead(partitionIndexes.get(file), withBodies);
+        return currentUnits.get(file);
+    }
+
+    /**
+     * Parses in parallel the partition of the file and the following partitions which are not retained in memory,
+     * up to one partition per worker.
+     * Partitions parsed for the first time are retained if there is enough room left.
+     */
+    private void parseAhead(int firstPartition, boolean withBodies) throws IOException {
+        boolean firstParsing = ! parsedPartitions[firstPartition];
+        List <Integer> window = new ArrayList <>();
+        List <Boolean> retained = new ArrayList <>();
+        int nbRetainedUnits = retainedUnits.size();
+        List <Callable <Map <File, CompilationUnit>>> tasks = new ArrayList <>();
+        for (int i = firstPartition ; i < partitions.size() && window.size() < pool.getParallelism() ; i++) {
+            List <File> partition = partitions.get(i);
+            if (parsedPartitions[i] != firstParsing && ! retainedUnits.containsKey(partition.get(0))) {
+                boolean retainedPartition = firstParsing && (maxRetainedUnits < 0 || nbRetainedUnits + partition.size() <= maxRetainedUnits);
+                if (retainedPartition) {
+                    nbRetainedUnits += partition.size();
+                }
+                window.add(i);
+                retained.add(retainedPartition);
+                tasks.add(() -> parsePartition(partition, withBodies || retainedPartition));
+            }
+        }
+        List <Future <Map <File, CompilationUnit>>> results = pool.invokeAll(tasks);
+        currentUnits = new HashMap <>();
+        currentUnitsWithBodies = withBodies;
+        for (int i = 0 ; i < window.size() ; i++) {
+            Map <File, CompilationUnit> partitionUnits = getResult(results.get(i));
+            List <File> partition = partitions.get(window.get(i));
+            if (firstParsing) {
+                parsedPartitions[window.get(i)] = true;
+                if (retained.get(i)) {
+                    retainedUnits.putAll(partitionUnits);
+                } else {
+                    nbSpilledUnits += partition.size();
+                    if (! batchMode) {
+                        for (File file : partition) {
+                            spilledSources.put(file, spill(decodedSources.get(file)));
+                        }
+                    }
+                }
+                partition.forEach(decodedSources::remove);
+            }
+            currentUnits.putAll(partitionUnits);
+        }
+    }
+
+    /**
+     * Executed by the workers.
+     */
+    private Map <File, CompilationUnit> parsePartition(List <File> partition, boolean withBodies) throws IOException {
+        if (batchMode) {
+            Map <File, CompilationUnit> partitionUnits = parser.parse(partition, withBodies);
+            if (! withBodies) {
+                for (File file : partition) {
+                    if (SourceParser.hasTypesInBodies(partitionUnits.get(file), parser.getDecoder().decode(file))) {
+                        // The files of a batch are parsed together, so that they get the same bindings whatever the visitor
+                        return parser.parse(partition, true);
+                    }
+                }
+            }
+            return partitionUnits;
+        }
+        Map <File, CompilationUnit> partitionUnits = new HashMap <>();
+        for (File file : partition) {
+            char[] fileContent;
+            Path spilledSource = spilledSources.get(file);
+            if (spilledSource != null) {
+                fileContent = SourceDecoder.decode(Files.readAllBytes(spilledSource), StandardCharsets.UTF_8);
+            } else {
+                fileContent = parser.getDecoder().decode(file);
+                decodedSources.put(file, fileContent);
+            }
+            CompilationUnit compilationUnit = parser.parse(file, fileContent, withBodies);
+            if (! withBodies && SourceParser.hasTypesInBodies(compilationUnit, fileContent)) {
+                compilationUnit = parser.parse(file, fileContent, true);
+            }
+            partitionUnits.put(file, compilationUnit);
+        }
+        return partitionUnits;
+    }
+
+    private Map <File, CompilationUnit> getResult(Future <Map <File, CompilationUnit>> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Path spill(char[] fileContent) throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = spillDirectoryParent == null ?
+                    Files.createTempDirectory("symfinder-spill") :
+                    Files.createTempDirectory(Files.createDirectories(Paths.get(spillDirectoryParent)), "symfinder-spill");
+        }
+        Path spilledSource = spillDirectory.resolve(spilledSources.size() + ".java");
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(fileContent));
+        try (FileChannel channel = FileChannel.open(spilledSource, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        return spilledSource;
+    }
+
+    public int getNbRetainedUnits() {
+        return retainedUnits.size();
+    }
+
+    public int getNbSpilledUnits() {
+        return nbSpilledUnits;
+    }
+
+    /**
+     * Stops the workers, releases the compilation units and deletes the spilled sources.
+     */
+    @Override
+    public void close() throws IOException {
+        pool.shutdown();
+        retainedUnits.clear();
+        currentUnits.clear();
+        for (Path spilledSource : spilledSources.values()) {
+            Files.deleteIfExists(spilledSource);
+        }
+        spilledSources.clear();
+        if (spillDirectory != null) {
+            Files.deleteIfExists(spillDirectory);
+            spillDirectory = null;
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes the source files.
+ * The charset of a file is found once and then remembered:
+ * - the charset set in the configuration, if any
+ * - the charset given by the byte order mark of the file, if any
+ * - UTF-8, if the file is valid UTF-8
+ * - otherwise, the first available charset able to decode the file
+ */
+public class SourceDecoder {
+
+    private static final Logger logger = LogManager.getLogger(SourceDecoder.class);
+
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private Charset encoding;
+    private Map <File, Charset> charsets = new ConcurrentHashMap <>();
+
+    /**
+     * @param encoding name of the charset of all source files, or null to find the charset of each file
+     */
+    public SourceDecoder(String encoding) {
+        this.encoding = encoding == null ? null : Charset.forName(encoding);
+    }
+
+    /**
+     * @return the charset of all source files, or null if the charset of each file is found from its content
+     */
+    public Charset getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * @return the content of the file, without its byte order mark
+     */
+    public char[] decode(File file) throws IOException {
+        return decode(file, Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * @param bytes content of the file, if it was already read
+     * @return the content of the file, without its byte order mark
+     */
+    public char[] decode(File file, byte[] bytes) throws CharacterCodingException {
+        Charset charset = charsets.get(file);
+        if (charset != null) {
+            return decode(bytes, charset);
+        }
+        return detectAndDecode(file, bytes);
+    }
+
+    /**
+     * @return the charset of the file
+     */
+    public Charset getCharset(File file) throws IOException {
+        Charset charset = charsets.get(file);
+        if (charset == null) {
+            detectAndDecode(file, Files.readAllBytes(file.toPath()));
+            charset = charsets.get(file);
+        }
+        return charset;
+    }
+
+    /**
+     * Decodes content which is known to be valid in the charset, e.g. a file written by symfinder.
+     */
+    public static char[] decode(byte[] bytes, Charset charset) throws CharacterCodingException {
+        int offset = getBomLength(bytes, charset);
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = decoder.decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+        if (chars.hasArray() && chars.arrayOffset() == 0 && chars.array().length == chars.remaining()) {
+            return chars.array();
+        }
+        return Arrays.copyOfRange(chars.array(), chars.arrayOffset() + chars.position(), chars.arrayOffset() + chars.limit());
+    }
+
+    private char[] detectAndDecode(File file, byte[] bytes) throws CharacterCodingException {
+        if (encoding != null) {
+            return decodeWith(file, bytes, encoding);
+        }
+        if (startsWith(bytes, UTF_8_BOM)) {
+            return decodeWith(file, bytes, StandardCharsets.UTF_8);
+        }
+        if (startsWith(bytes, UTF_16BE_BOM)) {
+            return decodeWith(file, bytes, StandardCharsets.UTF_16BE);
+        }
+        if (startsWith(bytes, UTF_16LE_BOM)) {
+            return decodeWith(file, bytes, StandardCharsets.UTF_16LE);
+        }
+        try {
+            return decodeWith(file, bytes, StandardCharsets.UTF_8);
+        } catch (CharacterCodingException e) {
+            logger.debug(file + " is not encoded in UTF-8");
+        }
+        for (Charset charset : Charset.availableCharsets().values()) {
+            if (! charset.equals(StandardCharsets.UTF_8)) {
+                try {
+                    return decodeWith(file, bytes, charset);
+                } catch (CharacterCodingException e) {
+                    logger.debug(charset.displayName() + ": wrong encoding");
+                }
+            }
+        }
+        throw new CharacterCodingException();
+    }
+
+    private char[] decodeWith(File file, byte[] bytes, Charset charset) throws CharacterCodingException {
+        char[] content = decode(bytes, charset);
+        charsets.put(file, charset);
+        return content;
+    }
+
+    private static int getBomLength(byte[] bytes, Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8) && startsWith(bytes, UTF_8_BOM)) {
+            return UTF_8_BOM.length;
+        }
+        if ((charset.equals(StandardCharsets.UTF_16BE) && startsWith(bytes, UTF_16BE_BOM)) ||
+                (charset.equals(StandardCharsets.UTF_16LE) && startsWith(bytes, UTF_16LE_BOM))) {
+            return UTF_16BE_BOM.length;
+        }
+        return 0;
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0 ; i < prefix.length ; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
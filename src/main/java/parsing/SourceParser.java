@@ -0,0 +1,182 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package parsing;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jdt.core.dom.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the JDT abstract syntax trees of the analysed source files, with bindings resolved.
+ * Inspired by https://www.programcreek.com/2014/01/how-to-resolve-bindings-when-using-eclipse-jdt-astparser/
+ */
+public class SourceParser {
+
+    private String classpathPath;
+    private Map <String, String> compilerOptions;
+    private SourceDecoder decoder;
+
+    public SourceParser(String classpathPath) {
+        this(classpathPath, null);
+    }
+
+    /**
+     * @param encoding name of the charset of the source files, or null to find the charset of each file
+     */
+    public SourceParser(String classpathPath, String encoding) {
+        this.classpathPath = classpathPath;
+        this.decoder = new SourceDecoder(encoding);
+        this.compilerOptions = JavaCore.getOptions();
+        this.compilerOptions.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_8);
+    }
+
+    public SourceDecoder getDecoder() {
+        return decoder;
+    }
+
+    public CompilationUnit parse(File file, char[] source) throws IOException {
+        return parse(file, source, true);
+    }
+
+    /**
+     * @param withBodies whether the bodies of the methods are parsed.
+     *                   Without them, the syntax tree only contains the declarations of the types, fields and methods,
+     *                   which is enough for the visitors which do not look inside the methods.
+     */
+    public CompilationUnit parse(File file, char[] source, boolean withBodies) throws IOException {
+        ASTParser parser = newParser(withBodies);
+        parser.setUnitName(file.getCanonicalPath());
+        parser.setEnvironment(new String[]{classpathPath}, new String[]{""}, new String[]{"UTF-8"}, true);
+        parser.setSource(source);
+        return (CompilationUnit) parser.createAST(null);
+    }
+
+    /**
+     * Parses all files at once.
+     * JDT then shares the name environment and the bindings between the compilation units of the batch,
+     * which avoids setting up the environment and looking up the JDK types again for each file.
+     * As the files of the batch are compiled together, the types they declare are resolved by JDT
+     * when they refer to each other.
+     *
+     * @param files files to parse
+     * @return the compilation unit corresponding to each file
+     */
+    public Map <File, CompilationUnit> parse(List <File> files) throws IOException {
+        return parse(files, true);
+    }
+
+    /**
+     * @param withBodies whether the bodies of the methods are parsed, see {@link #parse(File, char[], boolean)}
+     */
+    public Map <File, CompilationUnit> parse(List <File> files, boolean withBodies) throws IOException {
+        String[] sourceFilePaths = new String[files.size()];
+        String[] encodings = new String[files.size()];
+        Map <String, File> filesByPath = new HashMap <>();
+        for (int i = 0 ; i < files.size() ; i++) {
+            sourceFilePaths[i] = files.get(i).getCanonicalPath();
+            encodings[i] = decoder.getCharset(files.get(i)).name();
+            filesByPath.put(sourceFilePaths[i], files.get(i));
+        }
+        Map <File, CompilationUnit> compilationUnits = new HashMap <>();
+        ASTParser parser = newParser(withBodies);
+        parser.setEnvironment(new String[]{classpathPath}, new String[]{""}, new String[]{"UTF-8"}, true);
+        parser.createASTs(sourceFilePaths, encodings, new String[0], new FileASTRequestor() {
+            @Override
+            public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                compilationUnits.put(filesByPath.get(sourceFilePath), ast);
+            }
+        }, null);
+        return compilationUnits;
+    }
+
+    /**
+     * Tells whether types are declared in the bodies of the methods, initializers or field initializers of a file
+     * parsed without the bodies of its methods, i.e. whether its syntax tree misses some of the types of the file.
+     * The type declarations of the source are counted by scanning its keywords, which is much faster than parsing it.
+     *
+     * @param compilationUnit syntax tree of the file parsed without the bodies of its methods
+     * @param source content of the file
+     */
+    public static boolean hasTypesInBodies(CompilationUnit compilationUnit, char[] source) {
+        int[] nbDeclaredTypes = {0};
+        compilationUnit.accept(new ASTVisitor() {
+            @Override
+            public boolean visit(TypeDeclaration node) {
+                nbDeclaredTypes[0]++;
+                return true;
+            }
+
+            @Override
+            public boolean visit(EnumDeclaration node) {
+                nbDeclaredTypes[0]++;
+                return true;
+            }
+
+            @Override
+            public boolean visit(AnnotationTypeDeclaration node) {
+                nbDeclaredTypes[0]++;
+                return true;
+            }
+        });
+        IScanner scanner = ToolFactory.createScanner(false, false, false, JavaCore.VERSION_1_8);
+        scanner.setSource(source);
+        int nbTypeKeywords = 0;
+        try {
+            int previousToken = ITerminalSymbols.TokenNameEOF;
+            for (int token = scanner.getNextToken() ; token != ITerminalSymbols.TokenNameEOF ; token = scanner.getNextToken()) {
+                // Class literals (Shape.class) do not declare a type
+                if ((token == ITerminalSymbols.TokenNameclass || token == ITerminalSymbols.TokenNameinterface || token == ITerminalSymbols.TokenNameenum)
+                        && previousToken != ITerminalSymbols.TokenNameDOT) {
+                    nbTypeKeywords++;
+                }
+                previousToken = token;
+            }
+        } catch (InvalidInputException e) {
+            // The source cannot be scanned, hence the bodies are kept in case they declare types
+            return true;
+        }
+        return nbTypeKeywords > nbDeclaredTypes[0];
+    }
+
+    private ASTParser newParser(boolean withBodies) {
+        ASTParser parser = ASTParser.newParser(AST.JLS8);
+        parser.setResolveBindings(true);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setBindingsRecovery(true);
+        parser.setCompilerOptions(compilerOptions);
+        if (! withBodies) {
+            parser.setIgnoreMethodBodies(true);
+            parser.setStatementsRecovery(false);
+        }
+        return parser;
+    }
+
+}
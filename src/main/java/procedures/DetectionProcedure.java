@@ -0,0 +1,167 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package procedures;
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import org.neo4j.graphdb.*;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Mode;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.*;
+
+/**
+ * Neo4j procedure detecting the VPs and variants inside the database.
+ * <p>
+ * It gives the same result as the Cypher statements of {@link neograph.NeoGraph},
+ * but visits each node once instead of running a global statement per property and label.
+ * To be used, the procedures jar built by Maven has to be copied in the plugins directory of the Neo4j server.
+ */
+public class DetectionProcedure {
+
+    public static final String NAME = "symfinder.detect";
+
+    private static final Label CLASS = Label.label(EntityType.CLASS.toString());
+    private static final Label INTERFACE = Label.label(EntityType.INTERFACE.toString());
+    private static final Label METHOD = Label.label(EntityType.METHOD.toString());
+    private static final Label CONSTRUCTOR = Label.label(EntityType.CONSTRUCTOR.toString());
+    private static final Label ABSTRACT = Label.label(EntityAttribute.ABSTRACT.toString());
+    private static final Label OUT_OF_SCOPE = Label.label(EntityAttribute.OUT_OF_SCOPE.toString());
+    private static final Label VP = Label.label(EntityAttribute.VP.toString());
+    private static final Label METHOD_LEVEL_VP = Label.label(EntityAttribute.METHOD_LEVEL_VP.toString());
+    private static final Label VARIANT = Label.label(EntityAttribute.VARIANT.toString());
+    private static final RelationshipType EXTENDS = RelationshipType.withName(RelationType.EXTENDS.toString());
+    private static final RelationshipType IMPLEMENTS = RelationshipType.withName(RelationType.IMPLEMENTS.toString());
+
+    @Context
+    public GraphDatabaseService db;
+
+    /**
+     * Sets the methodVPs, methodVariants, constructorVPs, constructorVariants and classVariants properties
+     * and the VP, METHOD_LEVEL_VP and VARIANT labels.
+     *
+     * @param countOverloads false if the method and constructor properties have already been set from the overloads counted while visiting the classes
+     */
+    @Procedure(name = NAME, mode = Mode.WRITE)
+    @Description("Sets the VP and variant properties and labels of the classes and interfaces in a single traversal of the graph")
+    public void detect(@Name(value = "countOverloads", defaultValue = "true") boolean countOverloads) {
+        for (Node node : db.getAllNodes()) {
+            if (countOverloads && node.hasLabel(CLASS)) {
+                setOverloads(node);
+            }
+            setClassVariants(node);
+            if (! node.hasLabel(OUT_OF_SCOPE)) {
+                setVPLabels(node);
+            }
+            if (node.hasLabel(VP)) {
+                setVariantLabels(node);
+            }
+        }
+    }
+
+    /**
+     * Sets the same properties as NeoGraph.setMethodVPs, setMethodVariants, setConstructorVPs and setConstructorVariants.
+     */
+    private void setOverloads(Node classNode) {
+        Map <Object, Set <Node>> methodsByName = new HashMap <>();
+        long nbConstructors = 0;
+        for (Relationship relationship : classNode.getRelationships(Direction.OUTGOING)) {
+            Node child = relationship.getEndNode();
+            Object name = child.getProperty("name", null);
+            if (name == null) {
+                continue;
+            }
+            if (child.hasLabel(METHOD)) {
+                methodsByName.computeIfAbsent(name, key -> new HashSet <>()).add(child);
+            }
+            if (child.hasLabel(CONSTRUCTOR)) {
+                nbConstructors++;
+            }
+        }
+        long methodVPs = 0;
+        long methodVariants = 0;
+        for (Set <Node> methods : methodsByName.values()) {
+            if (methods.size() > 1) {
+                methodVPs++;
+                methodVariants += methods.size();
+            }
+        }
+        classNode.setProperty("methodVPs", methodVPs);
+        classNode.setProperty("methodVariants", methodVariants);
+        classNode.setProperty("constructorVPs", nbConstructors > 1 ? 1L : 0L);
+        classNode.setProperty("constructorVariants", nbConstructors > 1 ? nbConstructors : 0L);
+    }
+
+    /**
+     * Sets the same property as NeoGraph.setNbVariantsProperty.
+     */
+    private void setClassVariants(Node node) {
+        long classVariants = 0;
+        for (Relationship relationship : node.getRelationships(Direction.OUTGOING, EXTENDS, IMPLEMENTS)) {
+            if (relationship.getEndNode().hasLabel(CLASS)) {
+                classVariants++;
+            }
+        }
+        if (classVariants > 0 || node.hasLabel(CLASS) || node.hasLabel(INTERFACE)) {
+            node.setProperty("classVariants", classVariants);
+        }
+    }
+
+    /**
+     * Adds the same labels as NeoGraph.setVPLabels and setMethodLevelVPLabels.
+     */
+    private void setVPLabels(Node node) {
+        if (node.hasLabel(INTERFACE) || (node.hasLabel(CLASS) && node.hasLabel(ABSTRACT)) || hasDesignPattern(node)
+                || getLong(node, "classVariants") > 0) {
+            node.addLabel(VP);
+        }
+        if (getLong(node, "methodVPs") > 0 || getLong(node, "constructorVPs") > 0) {
+            node.addLabel(METHOD_LEVEL_VP);
+        }
+    }
+
+    /**
+     * Adds the same labels as NeoGraph.setVariantsLabels to the subtypes of the VP.
+     */
+    private void setVariantLabels(Node vpNode) {
+        for (Relationship relationship : vpNode.getRelationships(Direction.OUTGOING, EXTENDS, IMPLEMENTS)) {
+            Node variant = relationship.getEndNode();
+            if (variant.hasLabel(CLASS) || variant.hasLabel(INTERFACE)) {
+                variant.addLabel(VARIANT);
+            }
+        }
+    }
+
+    private static long getLong(Node node, String property) {
+        return ((Number) node.getProperty(property, 0L)).longValue();
+    }
+
+    private static boolean hasDesignPattern(Node node) {
+        return Arrays.stream(DesignPatternType.values()).anyMatch(type -> node.hasLabel(Label.label(type.toString())));
+    }
+
+}
@@ -1,18 +1,24 @@
 package visitors;
 
+import facts.MethodFact;
+import facts.TypeFact;
+import facts.TypeReference;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import neograph.ClassOverloads;
+import neograph.GraphStore;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.jdt.core.dom.Modifier;
-import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.neo4j.driver.v1.types.Node;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Parses all classes and the methods they contain, and adds them to the database.
  */
@@ -20,17 +26,37 @@ public class ClassesVisitor extends SymfinderVisitor {
 
     private static final Logger logger = LogManager.getLogger(ClassesVisitor.class);
 
-    public ClassesVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    private Map <String, ClassOverloads> overloads;
+
+    public ClassesVisitor(GraphStore graph) {
+        this(graph, false);
+    }
+
+    /**
+     * @param countOverloads whether the methods and constructors of each class are counted, see {@link #getOverloads()}
+     */
+    public ClassesVisitor(GraphStore graph, boolean countOverloads) {
+        super(graph);
+        if (countOverloads) {
+            overloads = new HashMap <>();
+        }
+    }
+
+    /**
+     * Returns the methods and constructors counted in each class visited,
+     * from which {@link GraphStore#setOverloads(Collection)} sets the method and constructor VPs and variants.
+     */
+    public Collection <ClassOverloads> getOverloads() {
+        return overloads == null ? Collections.emptyList() : overloads.values();
     }
 
     @Override
-    public boolean visit(TypeDeclaration type) {
+    public boolean visit(TypeFact type) {
         if (super.visit(type)) {
             EntityType nodeType;
             EntityAttribute[] nodeAttributes;
             // If the class is abstract
-            if (Modifier.isAbstract(type.getModifiers())) {
+            if (type.isAbstract()) {
                 nodeType = EntityType.CLASS;
                 nodeAttributes = new EntityAttribute[]{EntityAttribute.ABSTRACT};
                 // If the type is an interface
@@ -42,7 +68,7 @@ public class ClassesVisitor extends SymfinderVisitor {
                 nodeType = EntityType.CLASS;
                 nodeAttributes = new EntityAttribute[]{};
             }
-            neoGraph.createNode(type.resolveBinding().getQualifiedName(), nodeType, nodeAttributes);
+            graph.createNode(type.getQualifiedName(), nodeType, nodeAttributes);
             return true;
         }
         return false;
@@ -50,17 +76,29 @@ public class ClassesVisitor extends SymfinderVisitor {
 
     @Override
     public boolean visit(MethodDeclaration method) {
+        return visit(MethodFact.of(method));
+    }
+
+    @Override
+    public boolean visit(MethodFact method) {
         // Ignoring methods in anonymous classes
-        ITypeBinding declaringClass;
-        if (! (method.resolveBinding() == null)) {
-            declaringClass = method.resolveBinding().getDeclaringClass();
-            String methodName = method.getName().getIdentifier();
+        TypeReference declaringClass = method.getDeclaringClass();
+        if (! (declaringClass == null)) {
+            String methodName = method.getName();
             String parentClassName = declaringClass.getQualifiedName();
             logger.printf(Level.DEBUG, "Method: %s, parent: %s", methodName, parentClassName);
             EntityType methodType = method.isConstructor() ? EntityType.CONSTRUCTOR : EntityType.METHOD;
-            Node methodNode = Modifier.isAbstract(method.getModifiers()) ? neoGraph.createNode(methodName, methodType, EntityAttribute.ABSTRACT) : neoGraph.createNode(methodName, methodType);
-            Node parentClassNode = neoGraph.getOrCreateNode(parentClassName, declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS);
-            neoGraph.linkTwoNodes(parentClassNode, methodNode, RelationType.METHOD);
+            Node methodNode = method.isAbstract() ? graph.createNode(methodName, methodType, EntityAttribute.ABSTRACT) : graph.createNode(methodName, methodType);
+            Node parentClassNode = graph.getOrCreateNode(parentClassName, method.isDeclaringClassInterface() ? EntityType.INTERFACE : EntityType.CLASS);
+            graph.linkTwoNodes(parentClassNode, methodNode, RelationType.METHOD);
+            if (overloads != null && ! method.isDeclaringClassInterface()) {
+                ClassOverloads classOverloads = overloads.computeIfAbsent(parentClassName, name -> new ClassOverloads(parentClassNode));
+                if (method.isConstructor()) {
+                    classOverloads.addConstructor();
+                } else {
+                    classOverloads.addMethod(methodName);
+                }
+            }
         }
         return false;
     }
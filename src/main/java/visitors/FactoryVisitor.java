@@ -1,37 +1,66 @@
 package visitors;
 
+import facts.ReturnFact;
+import facts.TypeFact;
 import neo4j_types.DesignPatternType;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
+import neograph.TypeHierarchy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.ReturnStatement;
-import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.neo4j.driver.v1.types.Node;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Detects factory patterns.
  * We detect as a factory pattern:
  * - a class who possesses a method which returns an object whose type is a subtype of the method return type
  * - a class whose name contains "Factory"
+ * The subtypes are checked on the type hierarchy read from the graph before the first return statement,
+ * as the graph does not get new inheritance relationships after the GraphBuilderVisitor pass.
+ * The nodes are created and labeled at the end of the pass, in the order of the files,
+ * so that the detectors running in the same pass before this one do not see them, see {@link PatternDetectionVisitor}.
  */
 public class FactoryVisitor extends SymfinderVisitor {
 
     private static final Logger logger = LogManager.getLogger(FactoryVisitor.class);
 
-    public FactoryVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    private final boolean indirectSubtypes;
+    private TypeHierarchy typeHierarchy;
+    // Classes and interfaces detected as factories from their return statements, by kind
+    private final Map <EntityType, Set <String>> factories = new EnumMap <>(EntityType.class);
+    // Nodes created and labeled at the end of the pass, in the order of the files
+    private final List <Runnable> graphWrites = new ArrayList <>();
+    // Nodes of the factories found from the return statements, labeled at the end of the pass
+    private final List <Node> factoryNodes = new ArrayList <>();
+
+    public FactoryVisitor(GraphStore graph) {
+        this(graph, false);
+    }
+
+    /**
+     * @param indirectSubtypes whether a method returning an object whose type is an indirect subtype of the method return type also makes a factory
+     */
+    public FactoryVisitor(GraphStore graph, boolean indirectSubtypes) {
+        super(graph);
+        this.indirectSubtypes = indirectSubtypes;
     }
 
     @Override
-    public boolean visit(TypeDeclaration type) {
+    public boolean visit(TypeFact type) {
         if (super.visit(type)) {
-            String qualifiedName = type.resolveBinding().getQualifiedName();
+            String qualifiedName = type.getQualifiedName();
             if (qualifiedName.contains("Factory")) {
-                neoGraph.addLabelToNode(neoGraph.getOrCreateNode(qualifiedName, type.resolveBinding().isInterface() ? EntityType.INTERFACE : EntityType.CLASS), DesignPatternType.FACTORY.toString());
+                EntityType kind = type.isInterface() ? EntityType.INTERFACE : EntityType.CLASS;
+                graphWrites.add(() -> graph.addLabelToNode(graph.getOrCreateNode(qualifiedName, kind), DesignPatternType.FACTORY.toString()));
             }
             return true;
         }
@@ -39,44 +68,70 @@ public class FactoryVisitor extends SymfinderVisitor {
     }
 
     @Override
-    public boolean visit(ReturnStatement node) {
-        String typeOfReturnedObject;
-        if (node.getExpression() != null &&
-                node.getExpression().resolveTypeBinding() != null &&
-                ! node.getExpression().resolveTypeBinding().isNested() &&
-                (typeOfReturnedObject = node.getExpression().resolveTypeBinding().getQualifiedName()) != null &&
-                ! typeOfReturnedObject.equals("null")) {
-            MethodDeclaration methodDeclaration = (MethodDeclaration) getParentOfNodeWithType(node, ASTNode.METHOD_DECLARATION);
-            if (methodDeclaration != null && ! methodDeclaration.isConstructor() && methodDeclaration.getReturnType2().resolveBinding() != null && methodDeclaration.resolveBinding() != null) {
-                logger.debug(methodDeclaration.getName().getIdentifier());
-                // Check for constructor because of java.sourceui/src/org/netbeans/api/java/source/ui/ElementJavadoc.java:391 in netbeans-incubator
-                // TODO: 3/22/19 find why getReturnType2 returns null in core/src/main/java/org/apache/cxf/bus/managers/BindingFactoryManagerImpl.java
-                // TODO: 4/18/19 find why resolveBinding returns null in AWT 9+181, KeyboardFocusManager.java:2439, return SNFH_FAILURE
-                String parsedClassType = methodDeclaration.resolveBinding().getDeclaringClass().getQualifiedName();
-                String methodReturnType = methodDeclaration.getReturnType2().resolveBinding().getQualifiedName();
-                logger.debug("typeOfReturnedObject : " + typeOfReturnedObject);
-                logger.debug("methodReturnType : " + methodReturnType);
-                // TODO: 4/30/19 if does not exist already, add label to filter on visualization
-                Node methodReturnTypeNode = neoGraph.getOrCreateNode(methodReturnType, methodDeclaration.getReturnType2().resolveBinding().isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-                Node parsedClassNode = neoGraph.getOrCreateNode(parsedClassType, methodDeclaration.resolveBinding().getDeclaringClass().isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-                Node returnedObjectTypeNode = neoGraph.getOrCreateNode(typeOfReturnedObject, EntityType.CLASS);
-                // TODO: 3/27/19 functional test case with method returning Object → not direct link
-                if (neoGraph.relatedTo(methodReturnTypeNode, returnedObjectTypeNode) && neoGraph.getNbVariants(methodReturnTypeNode) >= 2) {
-                    neoGraph.addLabelToNode(parsedClassNode, DesignPatternType.FACTORY.toString());
-                }
+    public boolean visit(ReturnStatement returnStatement) {
+        return visit(ReturnFact.of(returnStatement));
+    }
+
+    @Override
+    public boolean visit(ReturnFact node) {
+        // The conditions on the returned object and on the method are checked when extracting the fact
+        if (node.hasTypes()) {
+            logger.debug(node.getMethodName());
+            String typeOfReturnedObject = node.getReturnedType();
+            String parsedClassType = node.getMethodDeclaringClass().getQualifiedName();
+            String methodReturnType = node.getMethodReturnType().getQualifiedName();
+            logger.debug("typeOfReturnedObject : " + typeOfReturnedObject);
+            logger.debug("methodReturnType : " + methodReturnType);
+            // TODO: 4/30/19 if does not exist already, add label to filter on visualization
+            EntityType methodReturnTypeKind = node.isMethodReturnTypeInterface() ? EntityType.INTERFACE : EntityType.CLASS;
+            EntityType parsedClassKind = node.isMethodDeclaringClassInterface() ? EntityType.INTERFACE : EntityType.CLASS;
+            boolean isKnownFactory = factories.computeIfAbsent(parsedClassKind, key -> new HashSet <>()).contains(parsedClassType);
+            boolean isFactory = ! isKnownFactory && isFactory(methodReturnType, methodReturnTypeKind, typeOfReturnedObject);
+            if (isFactory) {
+                factories.get(parsedClassKind).add(parsedClassType);
             }
+            // The types are still added to the graph when missing, as they are part of the graph exported
+            graphWrites.add(() -> {
+                graph.getOrCreateNode(methodReturnType, methodReturnTypeKind, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+                Node parsedClassNode = graph.getOrCreateNode(parsedClassType, parsedClassKind, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+                graph.getOrCreateNode(typeOfReturnedObject, EntityType.CLASS);
+                if (isFactory) {
+                    factoryNodes.add(parsedClassNode);
+                }
+            });
         }
         return false;
     }
 
-    private ASTNode getParentOfNodeWithType(ASTNode node, int astNodeType) {
-        ASTNode parentNode = node.getParent();
-        // If parentNode == null, it means that we went up through all parents without finding
-        // a node of the corresponding type.
-        while (parentNode != null && parentNode.getNodeType() != astNodeType) {
-            parentNode = parentNode.getParent();
+    /**
+     * @return true if the returned object is a subtype of the return type of the method, the return type having at least two variants
+     */
+    private boolean isFactory(String methodReturnType, EntityType methodReturnTypeKind, String typeOfReturnedObject) {
+        TypeHierarchy hierarchy = getTypeHierarchy();
+        // TODO: 3/27/19 functional test case with method returning Object → not direct link
+        boolean isReturnedObjectSubtype = indirectSubtypes ?
+                hierarchy.isSubtype(methodReturnType, methodReturnTypeKind, typeOfReturnedObject, EntityType.CLASS) :
+                hierarchy.isDirectSubtype(methodReturnType, methodReturnTypeKind, typeOfReturnedObject, EntityType.CLASS);
+        return isReturnedObjectSubtype && hierarchy.getNbVariants(methodReturnType, methodReturnTypeKind) >= 2;
+    }
+
+    /**
+     * Creates the nodes found during the pass and labels the factories, each class found from its return statements being labeled once.
+     */
+    @Override
+    public void endVisitFiles() {
+        graphWrites.forEach(Runnable::run);
+        graphWrites.clear();
+        graph.addLabelToNodes(factoryNodes, DesignPatternType.FACTORY.toString());
+        factoryNodes.clear();
+        factories.clear();
+    }
+
+    private TypeHierarchy getTypeHierarchy() {
+        if (typeHierarchy == null) {
+            typeHierarchy = graph.getTypeHierarchy();
         }
-        return parentNode;
+        return typeHierarchy;
     }
-}
 
+}
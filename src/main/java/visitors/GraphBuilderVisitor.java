@@ -1,16 +1,17 @@
 package visitors;
 
+import facts.TypeFact;
+import facts.TypeReference;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.dom.ITypeBinding;
-import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.neo4j.driver.v1.types.Node;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Parses all classes and creates the inheritance relations.
@@ -22,29 +23,28 @@ public class GraphBuilderVisitor extends ImportsVisitor {
 
     private static final Logger logger = LogManager.getLogger(GraphBuilderVisitor.class);
 
-    private static int nbCorrectedInheritanceLinks = 0;
+    private final LongAdder nbCorrectedInheritanceLinks = new LongAdder();
 
-    public GraphBuilderVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public GraphBuilderVisitor(GraphStore graph) {
+        super(graph);
     }
 
     @Override
-    public boolean visit(TypeDeclaration type) {
+    public boolean visit(TypeFact type) {
         if (super.visit(type)) {
-            ITypeBinding classBinding = type.resolveBinding();
-            String thisClassName = classBinding.getQualifiedName();
+            String thisClassName = type.getQualifiedName();
             logger.debug("Class: " + thisClassName);
-            Optional <Node> thisNode = classBinding.isInterface() ? neoGraph.getInterfaceNode(thisClassName) : neoGraph.getClassNode(thisClassName);
+            Optional <Node> thisNode = type.isInterface() ? graph.getInterfaceNode(thisClassName) : graph.getClassNode(thisClassName);
             if (thisNode.isPresent()) {
                 // Link to superclass if exists
-                ITypeBinding superclassType = classBinding.getSuperclass();
+                TypeReference superclassType = type.getSuperclass();
                 if (superclassType != null) {
-                    createImportedClassNode(classBinding.getErasure().getQualifiedName(), thisNode.get(), superclassType, EntityType.CLASS, RelationType.EXTENDS, "SUPERCLASS");
+                    createImportedClassNode(type.getType().getErasureQualifiedName(), thisNode.get(), superclassType, EntityType.CLASS, RelationType.EXTENDS, "SUPERCLASS");
                 }
 
                 // Link to implemented interfaces if exist
-                for (ITypeBinding o : classBinding.getInterfaces()) {
-                    createImportedClassNode(classBinding.getErasure().getQualifiedName(), thisNode.get(), o, EntityType.INTERFACE, RelationType.IMPLEMENTS, "INTERFACE");
+                for (TypeReference o : type.getInterfaces()) {
+                    createImportedClassNode(type.getType().getErasureQualifiedName(), thisNode.get(), o, EntityType.INTERFACE, RelationType.IMPLEMENTS, "INTERFACE");
                 }
             }
             return true;
@@ -53,22 +53,22 @@ public class GraphBuilderVisitor extends ImportsVisitor {
     }
 
     // TODO: 4/1/19 functional tests : imports from different packages
-    private void createImportedClassNode(String thisClassName, Node thisNode, ITypeBinding importedClassType, EntityType entityType, RelationType relationType, String name) {
+    private void createImportedClassNode(String thisClassName, Node thisNode, TypeReference importedClassType, EntityType entityType, RelationType relationType, String name) {
         Optional <String> myImportedClass = getClassFullName(importedClassType);
         String qualifiedName = getClassBaseName(importedClassType.getQualifiedName());
         if (myImportedClass.isPresent() && ! myImportedClass.get().equals(qualifiedName)) {
-            nbCorrectedInheritanceLinks++;
+            nbCorrectedInheritanceLinks.increment();
             logger.debug(String.format("DIFFERENT %s FULL NAMES FOUND FOR CLASS %s: \n" +
                     "JDT qualified name: %s\n" +
                     "Manually resolved name: %s\n" +
                     "Getting manually resolved name.", name, getClassBaseName(thisClassName), qualifiedName, myImportedClass.get()));
         }
-        Node superclassNode = neoGraph.getOrCreateNode(myImportedClass.orElse(qualifiedName), entityType, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-        neoGraph.linkTwoNodes(superclassNode, thisNode, relationType);
+        Node superclassNode = graph.getOrCreateNode(myImportedClass.orElse(qualifiedName), entityType, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+        graph.linkTwoNodes(superclassNode, thisNode, relationType);
     }
 
 
-    public static int getNbCorrectedInheritanceLinks() {
-        return nbCorrectedInheritanceLinks;
+    public int getNbCorrectedInheritanceLinks() {
+        return nbCorrectedInheritanceLinks.intValue();
     }
 }
@@ -1,47 +1,65 @@
 package visitors;
 
-import neograph.NeoGraph;
-import org.eclipse.jdt.core.dom.ITypeBinding;
+import facts.ImportFact;
+import facts.TypeFact;
+import facts.TypeReference;
+import neograph.GraphStore;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.neo4j.driver.v1.types.Node;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class ImportsVisitor extends SymfinderVisitor {
 
-    List <ImportDeclaration> imports = new ArrayList <>();
-    protected ITypeBinding thisClassBinding = null;
+    List <ImportFact> imports = new ArrayList <>();
+    // Single type imports matching a class name, resolved once per compilation unit
+    private Map <String, Optional <String>> resolvedImports = new HashMap <>();
+    protected TypeFact thisClass = null;
 
 
-    public ImportsVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public ImportsVisitor(GraphStore graph) {
+        super(graph);
     }
 
     @Override
-    public boolean visit(ImportDeclaration node) {
+    public boolean visit(ImportDeclaration importDeclaration) {
+        return visit(ImportFact.of(importDeclaration));
+    }
+
+    @Override
+    public void endVisit(TypeDeclaration type) {
+        endVisit(TypeFact.of(type));
+    }
+
+    @Override
+    public boolean visit(ImportFact node) {
         if (! node.isStatic()) {
             imports.add(node);
+            resolvedImports.clear();
         }
         return true;
     }
 
     @Override
-    public boolean visit(TypeDeclaration type) {
+    public boolean visit(TypeFact type) {
         if (super.visit(type)) {
-            this.thisClassBinding = type.resolveBinding();
+            this.thisClass = type;
             return true;
         }
         return false;
     }
 
     @Override
-    public void endVisit(TypeDeclaration node) {
+    public void endVisit(TypeFact node) {
         if (visitedType) {
-            thisClassBinding = null;
+            thisClass = null;
             imports.clear();
+            resolvedImports.clear();
         }
     }
 
@@ -58,31 +76,28 @@ public class ImportsVisitor extends SymfinderVisitor {
      * WARNING: all classes must have been parsed at least once before executing this method.
      * Otherwise, the class we are looking to may not exist in the database.
      *
-     * @param typeBinding binding found by JDT for the type to check
+     * @param type type found by JDT for the type to check
      * @return String containing the real full class name
      */
-    protected Optional <String> getClassFullName(ITypeBinding typeBinding) {
+    protected Optional <String> getClassFullName(TypeReference type) {
         // If there is a type bound, it means that there is a capture binding, e.g. capture-of ? extends Object[]
-        // Therefore, we do not use the binding of the field type but the binding of the superclass
-        ITypeBinding binding = typeBinding;
-        if(binding.getTypeBounds().length != 0){
-            binding = binding.getTypeBounds()[0];
-        }
-        String jdtFullName = binding.getQualifiedName();
+        // Therefore, we do not use the name of the field type but the name of its bound
+        String jdtFullName = type.getBoundQualifiedName();
         String jdtClassName = getClassBaseName(jdtFullName);
-        if (neoGraph.getNode(jdtClassName).isPresent()) {
+        if (graph.getTypeNode(jdtClassName).isPresent()) {
             return Optional.of(jdtClassName);
         }
-        String className = getClassBaseName(binding.getName());
-        Optional <ImportDeclaration> first = imports.stream()
-                .filter(importDeclaration -> importDeclaration.getName().getFullyQualifiedName().endsWith(className))
-                .findFirst();
-        if (first.isPresent()) {
-            return Optional.of(first.get().getName().getFullyQualifiedName());
+        String className = getClassBaseName(type.getBoundName());
+        Optional <String> imported = resolvedImports.computeIfAbsent(className, key -> imports.stream()
+                .filter(importDeclaration -> importDeclaration.getName().endsWith(key))
+                .map(ImportFact::getName)
+                .findFirst());
+        if (imported.isPresent()) {
+            return imported;
         }
         Optional <Optional <Node>> first1 = imports.stream()
-                .filter(ImportDeclaration::isOnDemand)
-                .map(importDeclaration -> neoGraph.getNodeWithNameInPackage(className, importDeclaration.getName().getFullyQualifiedName()))
+                .filter(ImportFact::isOnDemand)
+                .map(importDeclaration -> graph.getNodeWithNameInPackage(className, importDeclaration.getName()))
                 .filter(Optional::isPresent)
                 .findFirst();
         return first1.map(node -> node.get().get("name").asString()); // Optional.empty -> out of scope class
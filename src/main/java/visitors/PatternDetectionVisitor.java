@@ -0,0 +1,78 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+package visitors;
+
+import facts.FileFacts;
+import neograph.GraphStore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs several design pattern detectors in a single pass over the files.
+ * <p>
+ * A detector is a {@link SymfinderVisitor} overriding the visit methods of the facts it is interested in
+ * (types, fields, method invocations, return statements...), the other facts being ignored by default.
+ * The facts of each file are extracted once and each fact is given to all the detectors in turn,
+ * each detector going through the children of a fact only if it returned true when visiting it, as if it visited the file alone.
+ * Adding a detector therefore does not add a pass over the files.
+ * <p>
+ * Each detector must see the graph as if the detectors registered before it had already visited all the files,
+ * as the nodes they create can change how the types of the following files are resolved.
+ * Only the first detector can therefore write to the graph while visiting the files, the other ones keeping their writes
+ * until {@link #endVisitFiles()}, which ends the detectors in their order.
+ */
+public class PatternDetectionVisitor extends SymfinderVisitor {
+
+    private final List <SymfinderVisitor> detectors = new ArrayList <>();
+
+    public PatternDetectionVisitor(GraphStore graph, SymfinderVisitor... detectors) {
+        super(graph);
+        Collections.addAll(this.detectors, detectors);
+    }
+
+    /**
+     * Adds a detector, run after the ones already registered on each fact.
+     */
+    public void register(SymfinderVisitor detector) {
+        detectors.add(detector);
+    }
+
+    @Override
+    public boolean visit(CompilationUnit compilationUnit) {
+        visitFile(FileFacts.of(compilationUnit));
+        return false;
+    }
+
+    @Override
+    public void visitFile(FileFacts fileFacts) {
+        fileFacts.accept(detectors);
+    }
+
+    @Override
+    public void endVisitFiles() {
+        detectors.forEach(SymfinderVisitor::endVisitFiles);
+    }
+
+}
@@ -1,15 +1,19 @@
 package visitors;
 
+import facts.FieldFact;
+import facts.InvocationFact;
+import facts.TypeReference;
 import neo4j_types.DesignPatternType;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
-import neograph.NeoGraph;
+import neograph.GraphStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
 import org.neo4j.driver.v1.types.Node;
 
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Detects strategy, template and decorator patterns.
@@ -28,70 +32,117 @@ public class StrategyTemplateDecoratorVisitor extends ImportsVisitor {
 
     private static final Logger logger = LogManager.getLogger(StrategyTemplateDecoratorVisitor.class);
 
-    private ITypeBinding fieldDeclaringClassBinding;
+    private TypeReference fieldDeclaringClass;
+    // Classes and interfaces declaring invoked methods, by kind and qualified name, looked up once for the whole pass
+    private final Map <EntityType, Map <String, DeclaringClass>> declaringClasses = new EnumMap <>(EntityType.class);
+    // Classes detected as templates, labeled at the end of the pass
+    private final List <Node> templates = new ArrayList <>();
 
-    public StrategyTemplateDecoratorVisitor(NeoGraph neoGraph) {
-        super(neoGraph);
+    public StrategyTemplateDecoratorVisitor(GraphStore graph) {
+        super(graph);
     }
 
     @Override
     public boolean visit(FieldDeclaration field) {
-        logger.debug(field);
-        ITypeBinding fieldTypeBinding = field.getType().resolveBinding();
-        if (field.getParent() instanceof TypeDeclaration && fieldTypeBinding != null) { // prevents the case where the field is an enum, which does not bring variability
-            fieldDeclaringClassBinding = ((TypeDeclaration) field.getParent()).resolveBinding();
-            Optional <String> classFullName = getClassFullName(fieldTypeBinding);
+        return visit(FieldFact.of(field));
+    }
+
+    @Override
+    public boolean visit(FieldFact field) {
+        TypeReference fieldType = field.getType();
+        if (field.getDeclaringClass() != null && fieldType != null) { // prevents the case where the field is an enum, which does not bring variability
+            fieldDeclaringClass = field.getDeclaringClass();
+            logger.debug("Field of type " + fieldType.getQualifiedName() + " in " + fieldDeclaringClass.getQualifiedName());
+            Optional <String> classFullName = getClassFullName(fieldType);
             if (classFullName.isPresent()) {
-                Optional <Node> typeNode = neoGraph.getNode(classFullName.get());
+                Optional <Node> typeNode = graph.getTypeNode(classFullName.get());
                 typeNode.ifPresent(node -> {
-                    if (fieldTypeBinding.getName().contains("Strategy") || neoGraph.getNbVariants(node) >= 2) {
-                        neoGraph.addLabelToNode(node, DesignPatternType.STRATEGY.toString());
+                    if (fieldType.getName().contains("Strategy") || graph.getNbVariants(node) >= 2) {
+                        graph.addLabelToNode(node, DesignPatternType.STRATEGY.toString());
                     }
-                    if (fieldTypeBinding.getName().contains("Decorator")) {
-                        neoGraph.addLabelToNode(node, DesignPatternType.DECORATOR.toString());
+                    if (fieldType.getName().contains("Decorator")) {
+                        graph.addLabelToNode(node, DesignPatternType.DECORATOR.toString());
                     }
-                    checkAbstractDecorator(fieldDeclaringClassBinding, fieldTypeBinding);
+                    checkAbstractDecorator(fieldDeclaringClass, fieldType);
                 });
             }
         }
         return false;
     }
 
-    private void checkAbstractDecorator(ITypeBinding currentClassBinding, ITypeBinding fieldClassBinding) {
-        Optional <String> currentClassFullName = getClassFullName(currentClassBinding);
-        Optional <String> fieldClassFullName = getClassFullName(fieldClassBinding);
+    private void checkAbstractDecorator(TypeReference currentClass, TypeReference fieldClass) {
+        Optional <String> currentClassFullName = getClassFullName(currentClass);
+        Optional <String> fieldClassFullName = getClassFullName(fieldClass);
         if (currentClassFullName.isPresent() && fieldClassFullName.isPresent()) {
-            Node currentClassNode = neoGraph.getNode(currentClassFullName.get()).get();
-            Node fieldClassNode = neoGraph.getNode(fieldClassFullName.get()).get();
-            String currentClassName = currentClassBinding.getErasure().getQualifiedName();
-            boolean isClassInheritingFieldClass = neoGraph.getSuperclassNode(currentClassName).map(node -> node.equals(fieldClassNode)).orElse(false);
-            boolean isClassImplementingFieldClass = neoGraph.getImplementedInterfacesNodes(currentClassName).stream().anyMatch(node -> node.equals(fieldClassNode));
+            Node currentClassNode = graph.getTypeNode(currentClassFullName.get()).get();
+            Node fieldClassNode = graph.getTypeNode(fieldClassFullName.get()).get();
+            String currentClassName = currentClass.getErasureQualifiedName();
+            boolean isClassInheritingFieldClass = graph.getSuperclassNode(currentClassName).map(node -> node.id() == fieldClassNode.id()).orElse(false);
+            boolean isClassImplementingFieldClass = graph.getImplementedInterfacesNodes(currentClassName).stream().anyMatch(node -> node.id() == fieldClassNode.id());
 //            if(fieldClassBinding.getErasure().getQualifiedName().contains("Decorator") ||
-//                    ((isClassInheritingFieldClass || isClassImplementingFieldClass) && neoGraph.getNbVariants(fieldClassNode) >= 2 && neoGraph.getNbVariants(currentClassNode) >= 1)) {
-            if (((isClassInheritingFieldClass || isClassImplementingFieldClass) && neoGraph.getNbVariants(fieldClassNode) >= 2 && neoGraph.getNbVariants(currentClassNode) >= 1)) {
-                neoGraph.addLabelToNode(currentClassNode, DesignPatternType.DECORATOR.toString());
+//                    ((isClassInheritingFieldClass || isClassImplementingFieldClass) && graph.getNbVariants(fieldClassNode) >= 2 && graph.getNbVariants(currentClassNode) >= 1)) {
+            if (((isClassInheritingFieldClass || isClassImplementingFieldClass) && graph.getNbVariants(fieldClassNode) >= 2 && graph.getNbVariants(currentClassNode) >= 1)) {
+                graph.addLabelToNode(currentClassNode, DesignPatternType.DECORATOR.toString());
             }
         }
 
     }
 
+    @Override
+    public boolean visit(MethodInvocation invocation) {
+        return visit(InvocationFact.of(invocation));
+    }
+
     /**
      * This method is used to detect template patterns.
      * We do not explicitly check that the class is abstract as she must be abstract to define an abstract method.
      * We do not explicitly check the fact that the calling method is concrete; an abstract method cannot call another method as it does not have a body.
      */
     @Override
-    public boolean visit(MethodInvocation node) {
-        IMethodBinding methodBinding = node.resolveMethodBinding();
-        if (methodBinding != null) { // TODO: 4/10/19 check why null in JavaGeom, math.geom3d.Box3D, p1.getX()
-            ITypeBinding declaringClass = methodBinding.getDeclaringClass();
-            Node declaringClassNode = neoGraph.getOrCreateNode(declaringClass.getQualifiedName(), declaringClass.isInterface() ? EntityType.INTERFACE : EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
-            if (neoGraph.getNbVariants(declaringClassNode) > 0 && (declaringClass.getName().contains("Template") || (declaringClass.equals(this.thisClassBinding) && Modifier.isAbstract(methodBinding.getModifiers())))) {
-                neoGraph.addLabelToNode(declaringClassNode, DesignPatternType.TEMPLATE.toString());
+    public boolean visit(InvocationFact node) {
+        TypeReference declaringClass = node.getDeclaringClass();
+        if (declaringClass != null) { // TODO: 4/10/19 check why null in JavaGeom, math.geom3d.Box3D, p1.getX()
+            DeclaringClass declaringClassInfo = getDeclaringClass(declaringClass.getQualifiedName(), node.isDeclaringClassInterface() ? EntityType.INTERFACE : EntityType.CLASS);
+            if (! declaringClassInfo.template && declaringClassInfo.nbVariants > 0 && (declaringClass.getName().contains("Template") || (node.isDeclaredBy(this.thisClass) && node.isAbstractMethod()))) {
+                declaringClassInfo.template = true;
+                templates.add(declaringClassInfo.node);
             }
         }
         return false;
     }
 
+    /**
+     * Labels the templates found during the pass in a single operation.
+     */
+    @Override
+    public void endVisitFiles() {
+        graph.addLabelToNodes(templates, DesignPatternType.TEMPLATE.toString());
+        templates.clear();
+    }
+
+    /**
+     * Returns the node of the class declaring an invoked method with its number of variants, the node being created if needed.
+     * As this visitor creates neither classes having variants nor inheritance relationships, the number of variants does not change during the pass.
+     */
+    private DeclaringClass getDeclaringClass(String qualifiedName, EntityType type) {
+        return declaringClasses.computeIfAbsent(type, key -> new HashMap <>()).computeIfAbsent(qualifiedName, name -> {
+            Node declaringClassNode = graph.getOrCreateNode(name, type, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            return new DeclaringClass(declaringClassNode, graph.getNbVariants(declaringClassNode));
+        });
+    }
+
+    private static class DeclaringClass {
+
+        private final Node node;
+        private final int nbVariants;
+        private boolean template = false;
+
+        DeclaringClass(Node node, int nbVariants) {
+            this.node = node;
+            this.nbVariants = nbVariants;
+        }
+
+    }
+
 }
 
@@ -1,36 +1,36 @@
 package visitors;
 
-import neograph.NeoGraph;
+import facts.*;
+import neograph.GraphStore;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jdt.core.dom.*;
 
-import java.util.Arrays;
-
 /**
  * This class is inherited by all visitors and ensures that some parts of the code are ignored:
  * - enums
  * - test classes
  * - private nested classes
  * - anonymous classes
+ * The visitors work on the facts of the nodes, so that they can either visit a syntax tree
+ * or replay the facts of a file taken from the facts cache.
+ * As resolving the bindings of a node is costly, the facts of a syntax tree are only built for the nodes the visitor handles:
+ * a visitor handling other facts than the types overrides the visit of the matching nodes to build their facts.
  */
-public class SymfinderVisitor extends ASTVisitor {
+public class SymfinderVisitor extends ASTVisitor implements FactVisitor {
 
     private static final Logger logger = LogManager.getLogger(SymfinderVisitor.class);
-    protected NeoGraph neoGraph;
+    protected GraphStore graph;
     protected boolean visitedType = false;
 
-    public SymfinderVisitor(NeoGraph neoGraph) {
-        this.neoGraph = neoGraph;
+    public SymfinderVisitor(GraphStore graph) {
+        this.graph = graph;
     }
 
     @Override
     public boolean visit(TypeDeclaration type) {
-        ITypeBinding classBinding = type.resolveBinding();
-        logger.printf(Level.INFO, "Visitor: %s - Class: %s", this.getClass().getTypeName(), classBinding.getQualifiedName());
-        visitedType = ! isTestClass(classBinding) && ! (classBinding.isNested() && Modifier.isPrivate(classBinding.getModifiers())) && ! classBinding.isEnum() && ! classBinding.isAnonymous();
-        return visitedType;
+        return visit(TypeFact.of(type));
     }
 
     @Override
@@ -38,8 +38,24 @@ public class SymfinderVisitor extends ASTVisitor {
         return false;
     }
 
-    protected boolean isTestClass(ITypeBinding classBinding) {
-        return Arrays.asList(classBinding.getPackage().getNameComponents()).contains("test");
+    @Override
+    public boolean visit(TypeFact type) {
+        logger.printf(Level.INFO, "Visitor: %s - Class: %s", this.getClass().getTypeName(), type.getQualifiedName());
+        visitedType = ! type.isTestClass() && ! type.isPrivateNested() && ! type.isEnum() && ! type.isAnonymous();
+        return visitedType;
+    }
+
+    /**
+     * Visits the facts of a file taken from the facts cache.
+     */
+    public void visitFile(FileFacts fileFacts) {
+        fileFacts.accept(this);
+    }
+
+    /**
+     * Called once all the files of the project have been visited, for the visitors applying their results at the end of the pass.
+     */
+    public void endVisitFiles() {
     }
 
     protected static String getClassBaseName(String className){
@@ -0,0 +1,229 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.junit.rules.TemporaryFolder;
+import parsing.CompilationUnitStore;
+import parsing.SourceParser;
+import visitors.ClassesVisitor;
+import visitors.GraphBuilderVisitor;
+import visitors.SymfinderVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompilationUnitStoreTest {
+
+    private static final String LOCAL_CLASSES = "package shapes;\n" +
+            "public class Canvas {\n" +
+            "    private Runnable painter = () -> {\n" +
+            "        class LambdaPen extends Pen {}\n" +
+            "    };\n" +
+            "    private Object brush = new Object() {\n" +
+            "        class AnonymousPen extends Pen {}\n" +
+            "    };\n" +
+            "    {\n" +
+            "        class InitializerPen extends Pen {\n" +
+            "            void write() {}\n" +
+            "        }\n" +
+            "    }\n" +
+            "    static {\n" +
+            "        abstract class StaticPen extends Pen {}\n" +
+            "    }\n" +
+            "    public Canvas() {\n" +
+            "        class Painter {}\n" +
+            "    }\n" +
+            "    public void draw() {\n" +
+            "        class MethodPen extends Pen implements Runnable {\n" +
+            "            public void run() {}\n" +
+            "        }\n" +
+            "        new MethodPen().run();\n" +
+            "    }\n" +
+            "}\n" +
+            "class Pen {}\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SourceParser parser = new SourceParser(System.getProperty("java.home"));
+
+    @Test
+    public void retainedAndSpilledUnits() throws IOException {
+        List <File> files = writeShapes(4);
+        File spillDirectoryParent = temporaryFolder.newFolder();
+        try (CompilationUnitStore compilationUnits = new CompilationUnitStore(parser, files, 1, 2, spillDirectoryParent.getPath(), 1)) {
+            List <CompilationUnit> firstUnits = new ArrayList <>();
+            for (File file : files) {
+                firstUnits.add(compilationUnits.getCompilationUnit(file));
+            }
+            assertEquals(2, compilationUnits.getNbRetainedUnits());
+            assertEquals(2, compilationUnits.getNbSpilledUnits());
+            assertEquals(2, getSpilledSources(spillDirectoryParent).size());
+            // The spilled units are parsed again from the spilled sources, not from the original files
+            files.forEach(File::delete);
+            for (int i = 0 ; i < files.size() ; i++) {
+                CompilationUnit compilationUnit = compilationUnits.getCompilationUnit(files.get(i));
+                if (i < 2) {
+                    assertSame(firstUnits.get(i), compilationUnit);
+                } else {
+                    assertNotSame(firstUnits.get(i), compilationUnit);
+                }
+                assertEquals("Shape" + i, getType(compilationUnit).getName().getIdentifier());
+            }
+        }
+    }
+
+    @Test
+    public void batchesNotRetainedAreParsedAgainAsAWhole() throws IOException {
+        List <File> files = writeShapes(4);
+        File spillDirectoryParent = temporaryFolder.newFolder();
+        try (CompilationUnitStore compilationUnits = new CompilationUnitStore(parser, files, 2, 2, spillDirectoryParent.getPath(), 1)) {
+            for (File file : files) {
+                compilationUnits.getCompilationUnit(file);
+            }
+            assertEquals(2, compilationUnits.getNbRetainedUnits());
+            assertEquals(2, compilationUnits.getNbSpilledUnits());
+            // The batches are parsed again from the original files
+            assertEquals(0, getSpilledSources(spillDirectoryParent).size());
+            CompilationUnit compilationUnit = compilationUnits.getCompilationUnit(files.get(3));
+            assertSame(compilationUnit, compilationUnits.getCompilationUnit(files.get(3)));
+            // Shape2 is parsed along with Shape3, so the superclass of Shape3 is resolved from its source
+            assertSame(getType(compilationUnits.getCompilationUnit(files.get(2))).resolveBinding(),
+                    getType(compilationUnit).resolveBinding().getSuperclass());
+            assertSame(compilationUnit, compilationUnits.getCompilationUnit(files.get(3)));
+        }
+    }
+
+    @Test
+    public void unitsParsedWithoutBodiesWhenNotNeeded() throws IOException {
+        List <File> files = writeShapes(2);
+        try (CompilationUnitStore compilationUnits = new CompilationUnitStore(parser, files, 1, 1, temporaryFolder.getRoot().getPath(), 1)) {
+            // The retained unit is parsed with its bodies, as the following visitors need them
+            assertEquals(1, getNbStatements(compilationUnits.getCompilationUnit(files.get(0), false)));
+            CompilationUnit withoutBodies = compilationUnits.getCompilationUnit(files.get(1), false);
+            assertEquals(0, getNbStatements(withoutBodies));
+            assertSame(withoutBodies, compilationUnits.getCompilationUnit(files.get(1), false));
+            CompilationUnit withBodies = compilationUnits.getCompilationUnit(files.get(1), true);
+            assertEquals(1, getNbStatements(withBodies));
+            assertSame(withBodies, compilationUnits.getCompilationUnit(files.get(1), true));
+            // A unit parsed with its bodies is also fine for a visitor not needing them
+            assertSame(withBodies, compilationUnits.getCompilationUnit(files.get(1), false));
+        }
+    }
+
+    @Test
+    public void spilledSourcesDeletedOnClose() throws IOException {
+        List <File> files = writeShapes(3);
+        File spillDirectoryParent = temporaryFolder.newFolder();
+        try (CompilationUnitStore compilationUnits = new CompilationUnitStore(parser, files, 1, 0, spillDirectoryParent.getPath(), 2)) {
+            for (File file : files) {
+                compilationUnits.getCompilationUnit(file);
+            }
+            assertEquals(3, getSpilledSources(spillDirectoryParent).size());
+        }
+        assertEquals(0, spillDirectoryParent.list().length);
+    }
+
+    @Test
+    public void localClassesOfFilesNotRetained() throws IOException {
+        List <File> files = new ArrayList <>();
+        files.add(writeSource("Canvas.java", LOCAL_CLASSES));
+        files.add(writeSource("Shape.java", "package shapes;\npublic class Shape {\n    void draw() {\n        class Outline {}\n    }\n}\n"));
+        assertEquals(getGraphFile(files, 1, -1), getGraphFile(files, 1, 0));
+        assertEquals(getGraphFile(files, 2, -1), getGraphFile(files, 2, 0));
+    }
+
+    /**
+     * Builds the graph of the files as Symfinder does, the classes step not needing the bodies of the methods.
+     */
+    private String getGraphFile(List <File> files, int batchSize, int maxRetainedUnits) throws IOException {
+        GraphStore graph = new InMemoryGraph();
+        try (CompilationUnitStore compilationUnits = new CompilationUnitStore(parser, files, batchSize, maxRetainedUnits, temporaryFolder.getRoot().getPath(), 1)) {
+            visit(compilationUnits, files, new ClassesVisitor(graph), false);
+            visit(compilationUnits, files, new GraphBuilderVisitor(graph), true);
+        }
+        graph.detectVPsAndVariants();
+        File file = temporaryFolder.newFile();
+        graph.writeGraphFile(file.getPath());
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private void visit(CompilationUnitStore compilationUnits, List <File> files, SymfinderVisitor visitor, boolean withBodies) throws IOException {
+        for (File file : files) {
+            compilationUnits.getCompilationUnit(file, withBodies).accept(visitor);
+        }
+    }
+
+    /**
+     * Writes the classes Shape0 to Shape(n - 1), each one extending the previous one.
+     */
+    private List <File> writeShapes(int n) throws IOException {
+        List <File> files = new ArrayList <>();
+        for (int i = 0 ; i < n ; i++) {
+            files.add(writeSource("Shape" + i + ".java", "package shapes;\n" +
+                    "public class Shape" + i + (i > 0 ? " extends Shape" + (i - 1) : "") + " {\n" +
+                    "    public double area() {\n" +
+                    "        return " + i + ";\n" +
+                    "    }\n" +
+                    "}\n"));
+        }
+        return files;
+    }
+
+    private TypeDeclaration getType(CompilationUnit compilationUnit) {
+        return (TypeDeclaration) compilationUnit.types().get(0);
+    }
+
+    private int getNbStatements(CompilationUnit compilationUnit) {
+        MethodDeclaration method = getType(compilationUnit).getMethods()[0];
+        return method.getBody() == null ? 0 : method.getBody().statements().size();
+    }
+
+    private List <Path> getSpilledSources(File spillDirectoryParent) throws IOException {
+        List <Path> spilledSources = new ArrayList <>();
+        for (File spillDirectory : spillDirectoryParent.listFiles()) {
+            for (File spilledSource : spillDirectory.listFiles()) {
+                spilledSources.add(spilledSource.toPath());
+            }
+        }
+        return spilledSources;
+    }
+
+    private File writeSource(String name, String content) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.ClassOverloads;
+import neograph.NeoGraph;
+import org.junit.Test;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.harness.junit.Neo4jRule;
+import procedures.DetectionProcedure;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DetectionProcedureTest extends Neo4jTest {
+
+    @Override
+    protected Neo4jRule createNeo4jRule() {
+        return new Neo4jRule().withProcedure(DetectionProcedure.class);
+    }
+
+    @Test
+    public void procedureDetected() {
+        runTest(graph -> assertTrue(graph.isDetectionProcedureInstalled()));
+    }
+
+    @Test
+    public void sameResultAsCypherStatements() {
+        runTest(graph -> {
+            createShapes(graph);
+            graph.setMethodVPs();
+            graph.setMethodVariants();
+            graph.setConstructorVPs();
+            graph.setConstructorVariants();
+            graph.setNbVariantsProperty();
+            graph.setVPLabels();
+            graph.setMethodLevelVPLabels();
+            graph.setVariantsLabels();
+            List <String> expected = getNodes();
+            graph.deleteGraph();
+            createShapes(graph);
+            graph.detectVPsAndVariants();
+            assertEquals(expected, getNodes());
+        });
+    }
+
+    @Test
+    public void overloadsCountedWhileVisiting() {
+        runTest(graph -> {
+            Node rectangleClass = graph.createNode("Rectangle", EntityType.CLASS);
+            graph.createNode("Square", EntityType.CLASS);
+            ClassOverloads overloads = new ClassOverloads(rectangleClass);
+            overloads.addMethod("draw");
+            overloads.addMethod("draw");
+            graph.detectVPsAndVariants(Collections.singletonList(overloads));
+            assertEquals(1, graph.getTotalNbVPs());
+            assertEquals(1, graph.getNbMethodLevelVPs());
+        });
+    }
+
+    private void createShapes(NeoGraph graph) {
+        Node shapeInterface = graph.createNode("Shape", EntityType.INTERFACE);
+        Node rectangleClass = graph.createNode("Rectangle", EntityType.CLASS);
+        Node squareClass = graph.createNode("Square", EntityType.CLASS);
+        Node circleClass = graph.createNode("Circle", EntityAttribute.ABSTRACT, EntityType.CLASS);
+        Node strategyClass = graph.createNode("DrawingStrategy", EntityType.CLASS, DesignPatternType.STRATEGY);
+        Node serializableInterface = graph.createNode("Serializable", EntityType.INTERFACE, EntityAttribute.OUT_OF_SCOPE);
+        graph.linkTwoNodes(shapeInterface, rectangleClass, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(shapeInterface, circleClass, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(rectangleClass, squareClass, RelationType.EXTENDS);
+        graph.linkTwoNodes(serializableInterface, strategyClass, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(rectangleClass, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(rectangleClass, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(rectangleClass, graph.createNode("area", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(squareClass, graph.createNode("Square", EntityType.CONSTRUCTOR), RelationType.METHOD);
+        graph.linkTwoNodes(circleClass, graph.createNode("Circle", EntityType.CONSTRUCTOR), RelationType.METHOD);
+        graph.linkTwoNodes(circleClass, graph.createNode("Circle", EntityType.CONSTRUCTOR), RelationType.METHOD);
+    }
+
+    /**
+     * @return the labels and properties of each node of the graph, sorted so that they do not depend on the node ids
+     */
+    private List <String> getNodes() {
+        List <String> nodes = new ArrayList <>();
+        try (Result result = graphDatabaseService.execute("MATCH (n) RETURN labels(n) AS labels, properties(n) AS properties")) {
+            result.forEachRemaining(row -> {
+                List <String> labels = new ArrayList <>();
+                ((Collection <?>) row.get("labels")).forEach(label -> labels.add((String) label));
+                Collections.sort(labels);
+                Map <String, Object> properties = new TreeMap <>();
+                ((Map <?, ?>) row.get("properties")).forEach((key, value) -> properties.put((String) key, value));
+                nodes.add(labels + " " + properties);
+            });
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityType;
+import neograph.EmbeddedNeo4j;
+import neograph.NeoGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.driver.v1.Driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class EmbeddedNeo4jTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void graphKeptInStoreDirectory() throws IOException {
+        File storeDirectory = new File(temporaryFolder.getRoot(), "graph.db");
+        try (EmbeddedNeo4j embeddedNeo4j = new EmbeddedNeo4j(storeDirectory.getPath());
+             Driver driver = embeddedNeo4j.newDriver()) {
+            NeoGraph graph = new NeoGraph(driver);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            assertEquals(1, graph.getNbNodes());
+            assertTrue(graph.isDetectionProcedureInstalled());
+        }
+        assertTrue(Files.isDirectory(storeDirectory.toPath()));
+    }
+
+    @Test
+    public void previousStoreDeleted() throws IOException {
+        String storeDirectory = new File(temporaryFolder.getRoot(), "graph.db").getPath();
+        try (EmbeddedNeo4j embeddedNeo4j = new EmbeddedNeo4j(storeDirectory);
+             Driver driver = embeddedNeo4j.newDriver()) {
+            new NeoGraph(driver).createNode("Shape", EntityType.INTERFACE);
+        }
+        try (EmbeddedNeo4j embeddedNeo4j = new EmbeddedNeo4j(storeDirectory);
+             Driver driver = embeddedNeo4j.newDriver()) {
+            assertEquals(0, new NeoGraph(driver).getNbNodes());
+        }
+    }
+
+    @Test
+    public void temporaryStoreDeleted() throws IOException {
+        Path storeDirectory;
+        try (EmbeddedNeo4j embeddedNeo4j = new EmbeddedNeo4j(null);
+             Driver driver = embeddedNeo4j.newDriver()) {
+            storeDirectory = embeddedNeo4j.getStoreDirectory();
+            new NeoGraph(driver).createNode("Shape", EntityType.INTERFACE);
+        }
+        assertFalse(Files.exists(storeDirectory));
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import facts.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import parsing.SourceParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FactsCacheTest {
+
+    private static final String SHAPE = "package shapes;\n" +
+            "public abstract class Shape {\n" +
+            "    public abstract double area();\n" +
+            "    public void draw() {\n" +
+            "        class Pen {}\n" +
+            "        area();\n" +
+            "    }\n" +
+            "}\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private SourceParser parser = new SourceParser(System.getProperty("java.home"));
+
+    @Test
+    public void factsAreExtracted() throws IOException {
+        File file = writeSource("Shape.java", SHAPE);
+        FileFacts facts = new FactsCache(temporaryFolder.newFolder().getPath(), "").getFacts(Collections.singletonList(file), parser, 1).get(file);
+        TypeFact shape = (TypeFact) facts.getFacts().get(0);
+        assertEquals("shapes.Shape", shape.getQualifiedName());
+        assertTrue(shape.isAbstract());
+        assertFalse(shape.isInterface());
+        assertEquals("java.lang.Object", shape.getSuperclass().getQualifiedName());
+        MethodFact area = (MethodFact) shape.getChildren().get(0);
+        assertEquals("area", area.getName());
+        assertTrue(area.isAbstract());
+        assertEquals("shapes.Shape", area.getDeclaringClass().getQualifiedName());
+    }
+
+    @Test
+    public void unchangedFilesAreTakenFromTheCache() throws IOException {
+        String directory = temporaryFolder.newFolder().getPath();
+        File file = writeSource("Shape.java", SHAPE);
+        FactsCache firstRun = new FactsCache(directory, "");
+        firstRun.getFacts(Collections.singletonList(file), parser, 1);
+        assertEquals(0, firstRun.getNbHits());
+        assertEquals(1, firstRun.getNbMisses());
+        FactsCache secondRun = new FactsCache(directory, "");
+        FileFacts facts = secondRun.getFacts(Collections.singletonList(file), parser, 1).get(file);
+        assertEquals(1, secondRun.getNbHits());
+        assertEquals(0, secondRun.getNbMisses());
+        assertEquals("shapes.Shape", ((TypeFact) facts.getFacts().get(0)).getQualifiedName());
+    }
+
+    @Test
+    public void changedFilesAreParsedAgain() throws IOException {
+        String directory = temporaryFolder.newFolder().getPath();
+        File file = writeSource("Shape.java", SHAPE);
+        new FactsCache(directory, "").getFacts(Collections.singletonList(file), parser, 1);
+        writeSource("Shape.java", SHAPE.replace("abstract class", "class").replace("public abstract double area();", ""));
+        FactsCache secondRun = new FactsCache(directory, "");
+        FileFacts facts = secondRun.getFacts(Collections.singletonList(file), parser, 1).get(file);
+        assertEquals(1, secondRun.getNbMisses());
+        assertFalse(((TypeFact) facts.getFacts().get(0)).isAbstract());
+    }
+
+    @Test
+    public void changedEncodingParsesFilesAgain() throws IOException {
+        String directory = temporaryFolder.newFolder().getPath();
+        File file = writeSource("Shape.java", SHAPE);
+        new FactsCache(directory, "").getFacts(Collections.singletonList(file), new SourceParser(System.getProperty("java.home"), "UTF-8"), 1);
+        FactsCache secondRun = new FactsCache(directory, "");
+        secondRun.getFacts(Collections.singletonList(file), new SourceParser(System.getProperty("java.home"), "ISO-8859-1"), 1);
+        assertEquals(0, secondRun.getNbHits());
+        assertEquals(1, secondRun.getNbMisses());
+    }
+
+    @Test
+    public void unreadableEntriesAreParsedAgain() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        File file = writeSource("Shape.java", SHAPE);
+        new FactsCache(directory.getPath(), "").getFacts(Collections.singletonList(file), parser, 1);
+        File[] entries = directory.listFiles();
+        assertEquals(1, entries.length);
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(Files.newOutputStream(entries[0].toPath()))) {
+            outputStream.writeObject("not facts");
+        }
+        FactsCache secondRun = new FactsCache(directory.getPath(), "");
+        FileFacts facts = secondRun.getFacts(Collections.singletonList(file), parser, 1).get(file);
+        assertEquals(1, secondRun.getNbMisses());
+        assertEquals("shapes.Shape", ((TypeFact) facts.getFacts().get(0)).getQualifiedName());
+        Files.write(entries[0].toPath(), new byte[]{1, 2, 3});
+        FactsCache thirdRun = new FactsCache(directory.getPath(), "");
+        thirdRun.getFacts(Collections.singletonList(file), parser, 1);
+        assertEquals(1, thirdRun.getNbMisses());
+    }
+
+    @Test
+    public void unchangedFilesOfTheNextRevisionAreNotParsedAgain() throws IOException {
+        FactsCache factsCache = new FactsCache(null, "");
+        File shape = writeSource("Shape.java", SHAPE);
+        File circle = writeSource("Circle.java", "package shapes;\npublic class Circle extends Shape {}\n");
+        FileFacts shapeFacts = factsCache.getFacts(Collections.singletonList(shape), parser, 1).get(shape);
+        Map <File, FileFacts> nextRevision = factsCache.getFacts(Arrays.asList(shape, circle), parser, 1);
+        assertEquals(1, factsCache.getNbHits());
+        assertEquals(1, factsCache.getNbMisses());
+        assertSame(shapeFacts, nextRevision.get(shape));
+    }
+
+    @Test
+    public void typeNamesAreSharedBetweenFilesReadFromTheCache() throws IOException {
+        String directory = temporaryFolder.newFolder().getPath();
+        File shape = writeSource("Shape.java", SHAPE);
+        File circle = writeSource("Circle.java", "package shapes;\npublic class Circle extends Shape {}\n");
+        new FactsCache(directory, "").getFacts(Arrays.asList(shape, circle), parser, 1);
+        Map <File, FileFacts> facts = new FactsCache(directory, "").getFacts(Arrays.asList(shape, circle), parser, 1);
+        TypeFact shapeType = (TypeFact) facts.get(shape).getFacts().get(0);
+        TypeFact circleType = (TypeFact) facts.get(circle).getFacts().get(0);
+        assertSame(shapeType.getQualifiedName(), circleType.getSuperclass().getQualifiedName());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void extractedFactsCannotBeModified() throws IOException {
+        File file = writeSource("Shape.java", SHAPE);
+        FileFacts facts = new FactsCache(null, "").getFacts(Collections.singletonList(file), parser, 1).get(file);
+        facts.getFacts().get(0).getChildren().clear();
+    }
+
+    @Test
+    public void childrenOfSkippedFactsAreNotVisited() throws IOException {
+        File file = writeSource("Shape.java", SHAPE);
+        FileFacts facts = new FactsCache(temporaryFolder.newFolder().getPath(), "").getFacts(Collections.singletonList(file), parser, 1).get(file);
+        List <String> visitedTypes = new ArrayList <>();
+        facts.accept(new FactVisitor() {
+            @Override
+            public boolean visit(TypeFact type) {
+                visitedTypes.add(type.getQualifiedName());
+                return true;
+            }
+
+            @Override
+            public boolean visit(MethodFact method) {
+                return false;
+            }
+        });
+        assertEquals(Collections.singletonList("shapes.Shape"), visitedTypes);
+        visitedTypes.clear();
+        facts.accept(new FactVisitor() {
+            @Override
+            public boolean visit(TypeFact type) {
+                visitedTypes.add(type.getType().getName());
+                return true;
+            }
+        });
+        assertEquals(2, visitedTypes.size());
+        assertEquals("Pen", visitedTypes.get(1));
+    }
+
+    private File writeSource(String name, String content) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -19,6 +19,7 @@
  * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
  */
 
+import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import org.junit.Test;
 import org.neo4j.driver.v1.types.Node;
@@ -76,4 +77,54 @@ public class GetNodeTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void getMergedNodeInPackage(){
+        runTest(graph -> {
+            Node interfaceNode = graph.getOrCreateNode("fr.unice.i3s.TestInterface", EntityType.INTERFACE, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            Optional <Node> foundNode = graph.getNodeWithNameInPackage("TestInterface", "fr.unice.i3s");
+            assertTrue(foundNode.isPresent());
+            assertEquals(interfaceNode, foundNode.get());
+        });
+    }
+
+    @Test
+    public void getBufferedNodesInPackage(){
+        runTest(10, graph -> {
+            Node classNode = graph.createNode("fr.unice.i3s.TestClass", EntityType.CLASS);
+            graph.getOrCreateNode("fr.unice.TestClass", EntityType.CLASS);
+            graph.createNode("fr.unice.i3s.TestClass", EntityType.METHOD);
+            Optional <Node> foundNode = graph.getNodeWithNameInPackage("TestClass", "fr.unice.i3s");
+            assertTrue(foundNode.isPresent());
+            assertEquals(classNode.id(), foundNode.get().id());
+            assertEquals("TestClass", foundNode.get().get("simpleName").asString());
+        });
+    }
+
+    @Test
+    public void getTypeNodeSkipsMethods(){
+        runTest(graph -> {
+            Node methodNode = graph.createNode("draw", EntityType.METHOD);
+            graph.createNode("Shape", EntityType.CONSTRUCTOR);
+            Node interfaceNode = graph.createNode("Shape", EntityType.INTERFACE);
+            assertEquals(methodNode, graph.getNode("draw").get());
+            assertFalse(graph.getTypeNode("draw").isPresent());
+            assertEquals(interfaceNode, graph.getTypeNode("Shape").get());
+            assertTrue(interfaceNode.hasLabel("TYPE"));
+            assertFalse(methodNode.hasLabel("TYPE"));
+        });
+    }
+
+    @Test
+    public void getMergedTypeNode(){
+        runTest(10, graph -> {
+            graph.createNode("draw", EntityType.METHOD);
+            Node classNode = graph.getOrCreateNode("draw", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            Optional <Node> foundNode = graph.getTypeNode("draw");
+            assertTrue(foundNode.isPresent());
+            assertEquals(classNode.id(), foundNode.get().id());
+            assertTrue(foundNode.get().hasLabel("TYPE"));
+            assertTrue(foundNode.get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        });
+    }
+
 }
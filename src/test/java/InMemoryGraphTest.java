@@ -0,0 +1,194 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.ClassOverloads;
+import neograph.InMemoryGraph;
+import org.junit.Test;
+import org.neo4j.driver.v1.types.Node;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class InMemoryGraphTest {
+
+    @Test
+    public void createNodeTwoLabels() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node node = graph.createNode("Shape", EntityType.CLASS, EntityAttribute.ABSTRACT);
+        assertTrue(node.hasLabel(EntityType.CLASS.toString()));
+        assertTrue(node.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        assertEquals("Shape", node.get("name").asString());
+        assertEquals(1, graph.getNbNodes());
+    }
+
+    @Test
+    public void getNodeByLabel() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node classNode = graph.createNode("Shape", EntityType.CLASS);
+        Node interfaceNode = graph.createNode("Shape", EntityType.INTERFACE);
+        assertEquals(classNode, graph.getNode("Shape").get());
+        assertEquals(classNode, graph.getClassNode("Shape").get());
+        assertEquals(interfaceNode, graph.getInterfaceNode("Shape").get());
+        assertFalse(graph.getClassNode("Rectangle").isPresent());
+    }
+
+    @Test
+    public void getTypeNodeSkipsMethods() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node methodNode = graph.createNode("Shape", EntityType.CONSTRUCTOR);
+        Node interfaceNode = graph.createNode("Shape", EntityType.INTERFACE);
+        assertEquals(methodNode, graph.getNode("Shape").get());
+        assertEquals(interfaceNode, graph.getTypeNode("Shape").get());
+        assertFalse(graph.getTypeNode("draw").isPresent());
+    }
+
+    @Test
+    public void getOrCreateNodeAddsAttributes() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node createdNode = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+        assertTrue(createdNode.hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertFalse(createdNode.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        Node matchedNode = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+        assertEquals(createdNode, matchedNode);
+        assertTrue(matchedNode.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        graph.getOrCreateNode("Shape", EntityType.INTERFACE);
+        assertEquals(2, graph.getNbNodes());
+    }
+
+    @Test
+    public void setOverloads() {
+        InMemoryGraph graph = new InMemoryGraph();
+        ClassOverloads shapeOverloads = new ClassOverloads(graph.createNode("Shape", EntityType.CLASS));
+        shapeOverloads.addMethod("draw");
+        shapeOverloads.addMethod("draw");
+        shapeOverloads.addConstructor();
+        graph.createNode("Polygon", EntityType.CLASS);
+        graph.setOverloads(Collections.singletonList(shapeOverloads));
+        assertEquals(1, graph.getNbMethodVPs());
+        assertEquals(2, graph.getNbMethodVariants());
+        assertEquals(0, graph.getNbConstructorVPs());
+        assertEquals(0, graph.getNbConstructorVariants());
+    }
+
+    @Test
+    public void getNodeWithNameInPackage() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node classNode = graph.createNode("fr.unice.i3s.TestClass", EntityType.CLASS);
+        graph.createNode("fr.unice.i3s.TestClass", EntityType.METHOD);
+        Optional <Node> foundNode = graph.getNodeWithNameInPackage("TestClass", "fr.unice");
+        assertTrue(foundNode.isPresent());
+        assertEquals(classNode, foundNode.get());
+        assertFalse(graph.getNodeWithNameInPackage("TestClass", "fr.uni").isPresent());
+    }
+
+    @Test
+    public void superclassAndInterfaces() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node shapeNode = graph.createNode("Shape", EntityType.CLASS, EntityAttribute.ABSTRACT);
+        Node drawableNode = graph.createNode("Drawable", EntityType.INTERFACE);
+        Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+        graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.EXTENDS);
+        graph.linkTwoNodes(drawableNode, rectangleNode, RelationType.IMPLEMENTS);
+        assertEquals(shapeNode, graph.getSuperclassNode("Rectangle").get());
+        assertFalse(graph.getSuperclassNode("Shape").isPresent());
+        assertEquals(1, graph.getImplementedInterfacesNodes("Rectangle").size());
+        assertTrue(graph.getImplementedInterfacesNodes("Rectangle").contains(drawableNode));
+        assertTrue(graph.relatedTo(shapeNode, rectangleNode));
+        assertFalse(graph.relatedTo(rectangleNode, shapeNode));
+        assertEquals(1, graph.getNbVariants(shapeNode));
+        assertEquals(1, graph.getNbVariants(drawableNode));
+        assertEquals(0, graph.getNbVariants(rectangleNode));
+        assertEquals(2, graph.getNbInheritanceRelationships());
+    }
+
+    @Test
+    public void methodAndConstructorOverloads() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+        graph.linkTwoNodes(shapeNode, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(shapeNode, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(shapeNode, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(shapeNode, graph.createNode("display", EntityType.METHOD), RelationType.METHOD);
+        graph.linkTwoNodes(shapeNode, graph.createNode("Shape", EntityType.CONSTRUCTOR), RelationType.METHOD);
+        graph.linkTwoNodes(shapeNode, graph.createNode("Shape", EntityType.CONSTRUCTOR), RelationType.METHOD);
+        Node circleNode = graph.createNode("Circle", EntityType.CLASS);
+        graph.linkTwoNodes(circleNode, graph.createNode("Circle", EntityType.CONSTRUCTOR), RelationType.METHOD);
+        graph.detectVPsAndVariants();
+        assertEquals(1, graph.getNbMethodVPs());
+        assertEquals(3, graph.getNbMethodVariants());
+        assertEquals(1, graph.getNbConstructorVPs());
+        assertEquals(2, graph.getNbConstructorVariants());
+        assertEquals(2, graph.getNbMethodLevelVPs());
+        assertEquals(2, graph.getTotalNbVPs());
+        assertTrue(graph.getClassNode("Shape").get().hasLabel(EntityAttribute.METHOD_LEVEL_VP.toString()));
+        assertFalse(graph.getClassNode("Circle").get().hasLabel(EntityAttribute.METHOD_LEVEL_VP.toString()));
+    }
+
+    @Test
+    public void classLevelVPsAndVariants() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+        Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+        Node squareNode = graph.createNode("Square", EntityType.CLASS);
+        Node circleNode = graph.createNode("Circle", EntityType.CLASS, EntityAttribute.OUT_OF_SCOPE);
+        Node ellipseNode = graph.createNode("Ellipse", EntityType.CLASS);
+        graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+        graph.linkTwoNodes(rectangleNode, squareNode, RelationType.EXTENDS);
+        graph.linkTwoNodes(circleNode, ellipseNode, RelationType.EXTENDS);
+        graph.detectVPsAndVariants();
+        assertEquals(2, graph.getNbClassLevelVPs());
+        assertEquals(2, graph.getNbClassLevelVariants());
+        assertTrue(graph.getClassNode("Rectangle").get().hasLabel(EntityAttribute.VP.toString()));
+        assertTrue(graph.getClassNode("Square").get().hasLabel(EntityAttribute.VARIANT.toString()));
+        assertFalse(graph.getClassNode("Circle").get().hasLabel(EntityAttribute.VP.toString()));
+        assertFalse(graph.getClassNode("Ellipse").get().hasLabel(EntityAttribute.VARIANT.toString()));
+        assertEquals(1, graph.getClassNode("Rectangle").get().get("classVariants").asInt());
+    }
+
+    @Test
+    public void designPatternMakesVP() {
+        InMemoryGraph graph = new InMemoryGraph();
+        Node strategyNode = graph.createNode("Strategy", EntityType.CLASS);
+        graph.addLabelToNode(strategyNode, DesignPatternType.STRATEGY.toString());
+        graph.createNode("Shape", EntityType.CLASS);
+        graph.detectVPsAndVariants();
+        assertEquals(1, graph.getNbNodesHavingDesignPatterns());
+        assertEquals(1, graph.getNbClassLevelVPs());
+        assertTrue(graph.getNode("Strategy").get().hasLabel(EntityAttribute.VP.toString()));
+    }
+
+    @Test
+    public void deleteGraph() {
+        InMemoryGraph graph = new InMemoryGraph();
+        graph.linkTwoNodes(graph.createNode("Shape", EntityType.CLASS), graph.createNode("Rectangle", EntityType.CLASS), RelationType.EXTENDS);
+        graph.deleteGraph();
+        assertEquals(0, graph.getNbNodes());
+        assertEquals(0, graph.getNbRelationships());
+        assertFalse(graph.getNode("Shape").isPresent());
+    }
+
+}
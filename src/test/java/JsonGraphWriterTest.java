@@ -0,0 +1,82 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neograph.JsonGraphWriter;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class JsonGraphWriterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void emptyGraph() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "graph.json");
+        new JsonGraphWriter(file.getPath()).close();
+        assertEquals("{\"nodes\":[],\"links\":[]}", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void nodesAndLinks() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "output/graph.json");
+        writeShapeGraph(file);
+        assertEquals("{\"nodes\":[{\"name\":\"Shape\"},{\"name\":\"Rectangle\"}],\"links\":[{\"source\":\"Shape\",\"target\":\"Rectangle\"}]}",
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void gzipOutput() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "graph.json.gz");
+        writeShapeGraph(file);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+            JSONObject graph = new JSONObject(reader.readLine());
+            assertEquals(2, graph.getJSONArray("nodes").length());
+            assertEquals(1, graph.getJSONArray("links").length());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nodesAfterLinks() throws IOException {
+        try (JsonGraphWriter writer = new JsonGraphWriter(new File(temporaryFolder.getRoot(), "graph.json").getPath())) {
+            writer.writeLink(new JSONObject().put("source", "Shape").put("target", "Rectangle"));
+            writer.writeNode(new JSONObject().put("name", "Shape"));
+        }
+    }
+
+    private void writeShapeGraph(File file) throws IOException {
+        try (JsonGraphWriter writer = new JsonGraphWriter(file.getPath())) {
+            writer.writeNode(new JSONObject().put("name", "Shape"));
+            writer.writeNode(new JSONObject().put("name", "Rectangle"));
+            writer.writeLink(new JSONObject().put("source", "Shape").put("target", "Rectangle"));
+        }
+    }
+
+}
@@ -34,9 +34,16 @@ import java.util.function.Consumer;
 public class Neo4jTest {
 
     @Rule
-    public Neo4jRule neo4jRule = new Neo4jRule();
+    public Neo4jRule neo4jRule = createNeo4jRule();
     protected GraphDatabaseService graphDatabaseService;
 
+    /**
+     * Creates the rule starting the database, to be overridden by the tests needing procedures on the server.
+     */
+    protected Neo4jRule createNeo4jRule() {
+        return new Neo4jRule();
+    }
+
     @Before
     public void setUp() {
         graphDatabaseService = neo4jRule.getGraphDatabaseService();
@@ -48,8 +55,12 @@ public class Neo4jTest {
     }
 
     protected void runTest(Consumer<NeoGraph> consumer){
+        runTest(1, consumer);
+    }
+
+    protected void runTest(int writeBatchSize, Consumer<NeoGraph> consumer){
         try (Driver driver = GraphDatabase.driver(neo4jRule.boltURI(), Config.build().withoutEncryption().toConfig())) {
-            NeoGraph graph = new NeoGraph(driver);
+            NeoGraph graph = new NeoGraph(driver, writeBatchSize);
             consumer.accept(graph);
         }
     }
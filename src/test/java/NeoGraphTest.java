@@ -23,18 +23,40 @@ import neo4j_types.DesignPatternType;
 import neo4j_types.EntityAttribute;
 import neo4j_types.EntityType;
 import neo4j_types.RelationType;
+import neograph.ClassOverloads;
+import neograph.InMemoryGraph;
 import neograph.NeoGraph;
+import neograph.UnitOfWork;
+import org.json.JSONObject;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.neo4j.graphdb.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
 public class NeoGraphTest extends Neo4jTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void createNodeOneLabel() {
         runTest(graph -> {
@@ -308,6 +330,31 @@ public class NeoGraphTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void setOverloads() {
+        runTest(graph -> {
+            ClassOverloads shapeOverloads = new ClassOverloads(graph.createNode("Shape", EntityType.CLASS));
+            shapeOverloads.addMethod("draw");
+            shapeOverloads.addMethod("draw");
+            shapeOverloads.addMethod("display");
+            shapeOverloads.addConstructor();
+            shapeOverloads.addConstructor();
+            shapeOverloads.addConstructor();
+            graph.createNode("Polygon", EntityType.CLASS);
+            graph.setOverloads(Collections.singletonList(shapeOverloads));
+            assertEquals(1, graph.getNbMethodVPs());
+            assertEquals(2, graph.getNbMethodVariants());
+            assertEquals(1, graph.getNbConstructorVPs());
+            assertEquals(3, graph.getNbConstructorVariants());
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                Node polygonNode = graphDatabaseService.findNode(Label.label(EntityType.CLASS.toString()), "name", "Polygon");
+                assertEquals(0L, polygonNode.getProperty("methodVPs"));
+                assertEquals(0L, polygonNode.getProperty("constructorVariants"));
+                tx.success();
+            }
+        });
+    }
+
     @Test
     public void deleteGraph() {
         runTest(graph -> {
@@ -334,6 +381,19 @@ public class NeoGraphTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void addLabelToNodes() {
+        runTest(graph -> {
+            org.neo4j.driver.v1.types.Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            org.neo4j.driver.v1.types.Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            graph.createNode("Circle", EntityType.CLASS);
+            graph.addLabelToNodes(Arrays.asList(shapeNode, rectangleNode), DesignPatternType.TEMPLATE.toString());
+            assertTrue(graph.getClassNode("Shape").get().hasLabel(DesignPatternType.TEMPLATE.toString()));
+            assertTrue(graph.getClassNode("Rectangle").get().hasLabel(DesignPatternType.TEMPLATE.toString()));
+            assertFalse(graph.getClassNode("Circle").get().hasLabel(DesignPatternType.TEMPLATE.toString()));
+        });
+    }
+
     @Test
     public void getNbVariantsClass() {
         runTest(graph -> {
@@ -364,6 +424,78 @@ public class NeoGraphTest extends Neo4jTest {
         });
     }
 
+    @Test
+    public void getNbVariantsUpdatedByNewRelationships() {
+        runTest(graph -> {
+            org.neo4j.driver.v1.types.Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            org.neo4j.driver.v1.types.Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            assertEquals(0, graph.getNbVariants(shapeNode));
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            assertEquals(1, graph.getNbVariants(shapeNode));
+            graph.linkTwoNodes(shapeNode, graph.createNode("Circle", EntityType.CLASS), RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(shapeNode, graph.createNode("Polygon", EntityType.INTERFACE), RelationType.EXTENDS);
+            graph.linkTwoNodes(shapeNode, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            assertEquals(2, graph.getNbVariants(shapeNode));
+            assertEquals(0, graph.getNbVariants(rectangleNode));
+        });
+    }
+
+    @Test
+    public void getNbVariantsBufferedRelationships() {
+        runTest(10, graph -> {
+            org.neo4j.driver.v1.types.Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            assertEquals(0, graph.getNbVariants(shapeNode));
+            graph.linkTwoNodes(shapeNode, graph.createNode("Rectangle", EntityType.CLASS), RelationType.EXTENDS);
+            graph.linkTwoNodes(shapeNode, graph.createNode("Circle", EntityType.CLASS), RelationType.EXTENDS);
+            assertEquals(2, graph.getNbVariants(shapeNode));
+        });
+    }
+
+    @Test
+    public void getOrCreateNodeFromSeveralThreads() {
+        runTest(10, graph -> {
+            graph.setNodeCacheSize(100);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+                List <Future <List <Long>>> futures = new ArrayList <>();
+                for (int i = 0 ; i < 8 ; i++) {
+                    futures.add(executor.submit(() -> {
+                        List <Long> ids = new ArrayList <>();
+                        for (int j = 0 ; j < 20 ; j++) {
+                            org.neo4j.driver.v1.types.Node shapeNode = graph.getOrCreateNode("Shape" + j % 5, EntityType.INTERFACE);
+                            graph.linkTwoNodes(shapeNode, graph.createNode("Rectangle", EntityType.CLASS), RelationType.IMPLEMENTS);
+                            ids.add(shapeNode.id());
+                        }
+                        return ids;
+                    }));
+                }
+                Set <Long> ids = new HashSet <>();
+                for (Future <List <Long>> future : futures) {
+                    ids.addAll(future.get());
+                }
+                assertEquals(5, ids.size());
+            } catch (InterruptedException | ExecutionException e) {
+                fail(e.getMessage());
+            } finally {
+                executor.shutdown();
+            }
+            assertEquals(165, graph.getNbNodes());
+            assertEquals(160, graph.getNbInheritanceRelationships());
+        });
+    }
+
+    @Test
+    public void getNbVariantsAfterDeleteGraph() {
+        runTest(graph -> {
+            org.neo4j.driver.v1.types.Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, graph.createNode("Rectangle", EntityType.CLASS), RelationType.EXTENDS);
+            assertEquals(1, graph.getNbVariants(shapeNode));
+            graph.deleteGraph();
+            org.neo4j.driver.v1.types.Node newShapeNode = graph.createNode("Shape", EntityType.CLASS);
+            assertEquals(0, graph.getNbVariants(newShapeNode));
+        });
+    }
+
     @Test
     public void relatedToRelationExists() {
         runTest(graph -> {
@@ -451,4 +583,76 @@ public class NeoGraphTest extends Neo4jTest {
             assertTrue(graph.getImplementedInterfacesNodes("Rectangle").contains(shapeNode));
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void writeVPGraphFile() {
+        runTest(graph -> {
+            org.neo4j.driver.v1.types.Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            graph.linkTwoNodes(shapeNode, graph.createNode("Rectangle", EntityType.CLASS), RelationType.IMPLEMENTS);
+            graph.createNode("Circle", EntityType.CLASS);
+            graph.detectVPsAndVariants();
+            File file = new File(temporaryFolder.getRoot(), "graph.json");
+            graph.writeVPGraphFile(file.getPath());
+            try {
+                JSONObject json = new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+                assertEquals(2, json.getJSONArray("nodes").length());
+                assertEquals(1, json.getJSONArray("links").length());
+                assertEquals("Shape", json.getJSONArray("links").getJSONObject(0).getString("source"));
+            } catch (IOException e) {
+                fail(e.getMessage());
+            }
+        });
+    }
+
+    @Test
+    public void exportInMemoryGraph() {
+        runTest(graph -> {
+            InMemoryGraph inMemoryGraph = new InMemoryGraph();
+            org.neo4j.driver.v1.types.Node shapeNode = inMemoryGraph.createNode("Shape", EntityType.INTERFACE);
+            org.neo4j.driver.v1.types.Node rectangleNode = inMemoryGraph.createNode("Rectangle", EntityType.CLASS);
+            inMemoryGraph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            inMemoryGraph.linkTwoNodes(rectangleNode, inMemoryGraph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            inMemoryGraph.detectVPsAndVariants();
+            inMemoryGraph.exportTo(graph);
+            assertEquals(3, graph.getNbNodes());
+            assertEquals(2, graph.getNbRelationships());
+            assertEquals(inMemoryGraph.getNbClassLevelVPs(), graph.getNbClassLevelVPs());
+            assertEquals(inMemoryGraph.getNbClassLevelVariants(), graph.getNbClassLevelVariants());
+            assertEquals(0, graph.getNbMethodVPs());
+            assertEquals(inMemoryGraph.getInterfaceNode("Shape").get().get("classVariants").asInt(), graph.getInterfaceNode("Shape").get().get("classVariants").asInt());
+            assertEquals(graph.getInterfaceNode("Shape").get(), graph.getImplementedInterfacesNodes("Rectangle").get(0));
+        });
+    }
+
+    @Test
+    public void exportInMemoryGraphThroughCsvFiles() {
+        runTest(graph -> {
+            InMemoryGraph inMemoryGraph = new InMemoryGraph();
+            org.neo4j.driver.v1.types.Node shapeNode = inMemoryGraph.createNode("org.shapes.Shape", EntityType.INTERFACE);
+            org.neo4j.driver.v1.types.Node rectangleNode = inMemoryGraph.createNode("org.shapes.Rectangle", EntityType.CLASS);
+            inMemoryGraph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            inMemoryGraph.linkTwoNodes(rectangleNode, inMemoryGraph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            inMemoryGraph.linkTwoNodes(rectangleNode, inMemoryGraph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            inMemoryGraph.detectVPsAndVariants();
+            try {
+                File csvDirectory = temporaryFolder.newFolder("csv");
+                inMemoryGraph.exportTo(graph, csvDirectory.toPath(), csvDirectory.toURI().toString());
+            } catch (IOException e) {
+                fail(e.getMessage());
+            }
+            assertEquals(4, graph.getNbNodes());
+            assertEquals(3, graph.getNbRelationships());
+            assertEquals(inMemoryGraph.getNbClassLevelVPs(), graph.getNbClassLevelVPs());
+            assertEquals(inMemoryGraph.getNbClassLevelVariants(), graph.getNbClassLevelVariants());
+            assertEquals(1, graph.getNbMethodVPs());
+            assertEquals(2, graph.getNbMethodVariants());
+            assertEquals(graph.getInterfaceNode("org.shapes.Shape").get(), graph.getNodeWithNameInPackage("Shape", "org.shapes").get());
+            assertEquals(graph.getInterfaceNode("org.shapes.Shape").get(), graph.getImplementedInterfacesNodes("org.shapes.Rectangle").get(0));
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                assertEquals(0, graphDatabaseService.findNodes(Label.label("IMPORTED")).stream().count());
+                tx.success();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import org.junit.Test;
+import org.neo4j.driver.v1.types.Node;
+
+import static org.junit.Assert.*;
+
+public class NodeCacheTest extends Neo4jTest {
+
+    @Test
+    public void createdNodesFoundInCache() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            assertEquals(shapeNode.id(), graph.getClassNode("Shape").get().id());
+            assertEquals(shapeNode.id(), graph.getNode("Shape").get().id());
+            assertFalse(graph.getInterfaceNode("Shape").isPresent());
+            assertFalse(graph.getNode("Rectangle").isPresent());
+            assertEquals(4, graph.getNodeCacheHits());
+            assertEquals(0, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void getOrCreateNodeMatchesCachedNode() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            Node shapeNode = graph.getOrCreateNode("Shape", EntityType.CLASS);
+            assertEquals(shapeNode.id(), graph.getOrCreateNode("Shape", EntityType.CLASS).id());
+            assertNotEquals(shapeNode.id(), graph.getOrCreateNode("Shape", EntityType.INTERFACE).id());
+            assertEquals(2, graph.getNbNodes());
+            assertEquals(0, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void matchAttributesAddedToCachedNode() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            Node shapeNode = graph.getOrCreateNode("Shape", EntityType.CLASS);
+            graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+            assertTrue(graph.getClassNode("Shape").get().hasLabel(EntityAttribute.ABSTRACT.toString()));
+            assertEquals(shapeNode.id(), graph.getClassNode("Shape").get().id());
+            assertEquals(1, graph.getNbNodes());
+        });
+    }
+
+    @Test
+    public void addedLabelVisibleInCachedNode() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.addLabelToNode(shapeNode, DesignPatternType.STRATEGY.toString());
+            Node cachedNode = graph.getClassNode("Shape").get();
+            assertTrue(cachedNode.hasLabel(DesignPatternType.STRATEGY.toString()));
+            assertEquals(0, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void existingNodesLookedUpInDatabase() {
+        runTest(graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.setNodeCacheSize(10);
+            assertEquals(shapeNode.id(), graph.getNode("Shape").get().id());
+            assertEquals(1, graph.getNodeCacheMisses());
+            assertEquals(shapeNode.id(), graph.getClassNode("Shape").get().id());
+            assertEquals(1, graph.getNodeCacheHits());
+        });
+    }
+
+    @Test
+    public void evictedNodesLookedUpInDatabase() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(1);
+            Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.createNode("Rectangle", EntityType.CLASS);
+            assertEquals(shapeNode.id(), graph.getNode("Shape").get().id());
+            assertFalse(graph.getNode("Circle").isPresent());
+            assertEquals(2, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void missingNamesDoNotEvictNodes() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(2);
+            Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.createNode("Rectangle", EntityType.CLASS);
+            for (String name : new String[]{"Object", "String", "Integer"}) {
+                assertFalse(graph.getNode(name).isPresent());
+            }
+            assertEquals(shapeNode.id(), graph.getNode("Shape").get().id());
+            assertFalse(graph.getNode("List").isPresent());
+            assertEquals(0, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void missingNamesRememberedWhenCacheIncomplete() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(1);
+            graph.createNode("Shape", EntityType.CLASS);
+            graph.createNode("Rectangle", EntityType.CLASS);
+            assertFalse(graph.getNode("Circle").isPresent());
+            assertFalse(graph.getNode("Circle").isPresent());
+            assertEquals(1, graph.getNodeCacheMisses());
+            Node circleNode = graph.createNode("Circle", EntityType.CLASS);
+            assertEquals(circleNode.id(), graph.getNode("Circle").get().id());
+            assertEquals(1, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void cacheClearedByBulkStatements() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            graph.createNode("Shape", EntityType.INTERFACE);
+            graph.setVPLabels();
+            assertTrue(graph.getNode("Shape").get().hasLabel(EntityAttribute.VP.toString()));
+            assertEquals(1, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void typeNodesFoundInCache() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            graph.createNode("Shape", EntityType.CONSTRUCTOR);
+            Node shapeNode = graph.getOrCreateNode("Shape", EntityType.INTERFACE);
+            assertEquals(shapeNode.id(), graph.getTypeNode("Shape").get().id());
+            assertFalse(graph.getTypeNode("draw").isPresent());
+            assertEquals(0, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void nodesInPackageFoundInCache() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(10);
+            Node shapeNode = graph.createNode("org.shapes.Shape", EntityType.INTERFACE);
+            graph.createNode("org.shapes.Shape", EntityType.METHOD);
+            assertEquals(shapeNode.id(), graph.getNodeWithNameInPackage("Shape", "org").get().id());
+            assertFalse(graph.getNodeWithNameInPackage("Shape", "org.sha").isPresent());
+            assertFalse(graph.getNodeWithNameInPackage("Rectangle", "org.shapes").isPresent());
+            assertEquals(0, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void nodesInPackageLookedUpInDatabaseWhenCacheIncomplete() {
+        runTest(graph -> {
+            graph.setNodeCacheSize(1);
+            Node shapeNode = graph.createNode("org.shapes.Shape", EntityType.CLASS);
+            graph.createNode("org.shapes.Rectangle", EntityType.CLASS);
+            assertEquals(shapeNode.id(), graph.getNodeWithNameInPackage("Shape", "org.shapes").get().id());
+            assertEquals(1, graph.getNodeCacheMisses());
+        });
+    }
+
+    @Test
+    public void bufferedNodesCached() {
+        runTest(10, graph -> {
+            graph.setNodeCacheSize(10);
+            Node shapeNode = graph.getOrCreateNode("Shape", EntityType.CLASS);
+            assertSame(shapeNode, graph.getOrCreateNode("Shape", EntityType.CLASS));
+            assertEquals(1, graph.getNbNodes());
+        });
+    }
+
+}
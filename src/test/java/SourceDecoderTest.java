@@ -0,0 +1,91 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import parsing.SourceDecoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SourceDecoderTest {
+
+    private static final String SOURCE = "// Crée une forme\r\npublic class Shape {}\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void utf8() throws IOException {
+        File file = writeSource(SOURCE.getBytes(StandardCharsets.UTF_8));
+        SourceDecoder decoder = new SourceDecoder(null);
+        assertEquals(SOURCE, new String(decoder.decode(file)));
+        assertEquals(StandardCharsets.UTF_8, decoder.getCharset(file));
+    }
+
+    @Test
+    public void utf8WithByteOrderMark() throws IOException {
+        byte[] content = SOURCE.getBytes(StandardCharsets.UTF_8);
+        byte[] contentWithBom = new byte[content.length + 3];
+        contentWithBom[0] = (byte) 0xEF;
+        contentWithBom[1] = (byte) 0xBB;
+        contentWithBom[2] = (byte) 0xBF;
+        System.arraycopy(content, 0, contentWithBom, 3, content.length);
+        assertEquals(SOURCE, new String(new SourceDecoder(null).decode(writeSource(contentWithBom))));
+    }
+
+    @Test
+    public void utf16WithByteOrderMark() throws IOException {
+        File file = writeSource(SOURCE.getBytes(StandardCharsets.UTF_16));
+        SourceDecoder decoder = new SourceDecoder(null);
+        assertEquals(SOURCE, new String(decoder.decode(file)));
+        assertEquals(StandardCharsets.UTF_16BE, decoder.getCharset(file));
+    }
+
+    @Test
+    public void notUtf8() throws IOException {
+        File file = writeSource(SOURCE.getBytes(StandardCharsets.ISO_8859_1));
+        SourceDecoder decoder = new SourceDecoder(null);
+        String content = new String(decoder.decode(file));
+        assertTrue(content.endsWith("public class Shape {}\n"));
+        assertNotEquals(StandardCharsets.UTF_8, decoder.getCharset(file));
+    }
+
+    @Test
+    public void configuredEncoding() throws IOException {
+        File file = writeSource(SOURCE.getBytes(StandardCharsets.ISO_8859_1));
+        SourceDecoder decoder = new SourceDecoder("ISO-8859-1");
+        assertEquals(SOURCE, new String(decoder.decode(file)));
+        assertEquals(StandardCharsets.ISO_8859_1, decoder.getCharset(file));
+    }
+
+    private File writeSource(byte[] content) throws IOException {
+        File file = temporaryFolder.newFile("Shape.java");
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+}
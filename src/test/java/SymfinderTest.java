@@ -0,0 +1,109 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import configuration.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SymfinderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() throws IOException {
+        File propertiesFile = temporaryFolder.newFile("symfinder.yaml");
+        Files.write(propertiesFile.toPath(), ("graph:\n" +
+                "  store: memory\n" +
+                "  exportToNeo4j: false\n").getBytes(StandardCharsets.UTF_8));
+        Configuration.load(propertiesFile.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        Configuration.load("symfinder.yaml");
+    }
+
+    @Test
+    public void revisionsAnalysedInASingleRunGiveTheGraphsOfSeparateRuns() throws IOException {
+        List <String> revisions = new ArrayList <>();
+        // First revision: a strategy and a template
+        revisions.add(writeRevision("shapes/Shape.java", "package shapes;\npublic interface Shape {\n    double area();\n}\n",
+                "shapes/Circle.java", "package shapes;\npublic class Circle implements Shape {\n    public double area() { return 3; }\n}\n",
+                "shapes/Square.java", "package shapes;\npublic class Square implements Shape {\n    public double area() { return 1; }\n}\n",
+                "shapes/Canvas.java", "package shapes;\npublic class Canvas {\n    private Shape shape;\n    public Shape create() { return new Circle(); }\n}\n"));
+        // Second revision: a modified file and an added one
+        revisions.add(writeRevision("shapes/Shape.java", "package shapes;\npublic interface Shape {\n    double area();\n}\n",
+                "shapes/Circle.java", "package shapes;\npublic class Circle implements Shape {\n    public Circle() {}\n    public Circle(double radius) {}\n    public double area() { return 3; }\n    public double area(double scale) { return 3 * scale; }\n}\n",
+                "shapes/Square.java", "package shapes;\npublic class Square implements Shape {\n    public double area() { return 1; }\n}\n",
+                "shapes/Triangle.java", "package shapes;\npublic class Triangle implements Shape {\n    public double area() { return 2; }\n}\n",
+                "shapes/Canvas.java", "package shapes;\npublic class Canvas {\n    private Shape shape;\n    public Shape create() { return new Circle(); }\n}\n"));
+        // Third revision: a removed file
+        revisions.add(writeRevision("shapes/Shape.java", "package shapes;\npublic interface Shape {\n    double area();\n}\n",
+                "shapes/Circle.java", "package shapes;\npublic class Circle implements Shape {\n    public Circle() {}\n    public Circle(double radius) {}\n    public double area() { return 3; }\n    public double area(double scale) { return 3 * scale; }\n}\n",
+                "shapes/Triangle.java", "package shapes;\npublic class Triangle implements Shape {\n    public double area() { return 2; }\n}\n",
+                "shapes/Canvas.java", "package shapes;\npublic class Canvas {\n    private Shape shape;\n    public Shape create() { return new Circle(); }\n}\n"));
+        List <String> graphOutputPaths = new ArrayList <>();
+        for (int i = 0 ; i < revisions.size() ; i++) {
+            graphOutputPaths.add(new File(temporaryFolder.getRoot(), "revisions-" + i + ".json").getPath());
+        }
+        new Symfinder(revisions, graphOutputPaths).run();
+        for (int i = 0 ; i < revisions.size() ; i++) {
+            String graphOutputPath = new File(temporaryFolder.getRoot(), "revision-" + i + ".json").getPath();
+            new Symfinder(Collections.singletonList(revisions.get(i)), Collections.singletonList(graphOutputPath)).run();
+            assertTrue(read(graphOutputPaths.get(i)).contains("shapes.Shape"));
+            assertEquals("Graph of revision " + i, read(graphOutputPath), read(graphOutputPaths.get(i)));
+            assertEquals("Statistics of revision " + i, read(graphOutputPath.replace(".json", "-stats.json")), read(graphOutputPaths.get(i).replace(".json", "-stats.json")));
+        }
+    }
+
+    /**
+     * @param files path and content of each file of the revision
+     * @return the source directory of the revision
+     */
+    private String writeRevision(String... files) throws IOException {
+        File sourceDirectory = temporaryFolder.newFolder();
+        for (int i = 0 ; i < files.length ; i += 2) {
+            File file = new File(sourceDirectory, files[i]);
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), files[i + 1].getBytes(StandardCharsets.UTF_8));
+        }
+        return sourceDirectory.getPath();
+    }
+
+    private String read(String path) throws IOException {
+        return new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.TypeHierarchy;
+import org.junit.Test;
+import org.neo4j.driver.v1.types.Node;
+
+import static org.junit.Assert.*;
+
+public class TypeHierarchyTest extends Neo4jTest {
+
+    @Test
+    public void directSubtypes() {
+        runTest(graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            Node squareNode = graph.createNode("Square", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(rectangleNode, squareNode, RelationType.EXTENDS);
+            TypeHierarchy hierarchy = graph.getTypeHierarchy();
+            assertTrue(hierarchy.isDirectSubtype("Shape", EntityType.INTERFACE, "Rectangle", EntityType.CLASS));
+            assertTrue(hierarchy.isDirectSubtype("Rectangle", EntityType.CLASS, "Square", EntityType.CLASS));
+            assertFalse(hierarchy.isDirectSubtype("Shape", EntityType.INTERFACE, "Square", EntityType.CLASS));
+            assertFalse(hierarchy.isDirectSubtype("Shape", EntityType.CLASS, "Rectangle", EntityType.CLASS));
+            assertFalse(hierarchy.isDirectSubtype("Shape", EntityType.INTERFACE, "Circle", EntityType.CLASS));
+        });
+    }
+
+    @Test
+    public void indirectSubtypes() {
+        runTest(graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            Node squareNode = graph.createNode("Square", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(rectangleNode, squareNode, RelationType.EXTENDS);
+            TypeHierarchy hierarchy = graph.getTypeHierarchy();
+            assertTrue(hierarchy.isSubtype("Shape", EntityType.INTERFACE, "Rectangle", EntityType.CLASS));
+            assertTrue(hierarchy.isSubtype("Shape", EntityType.INTERFACE, "Square", EntityType.CLASS));
+            assertFalse(hierarchy.isSubtype("Square", EntityType.CLASS, "Shape", EntityType.INTERFACE));
+        });
+    }
+
+    @Test
+    public void sameAnswersAsGraph() {
+        runTest(graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            Node polygonNode = graph.createNode("Polygon", EntityType.INTERFACE);
+            Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            Node circleNode = graph.createNode("Circle", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, polygonNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(shapeNode, circleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(rectangleNode, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            TypeHierarchy hierarchy = graph.getTypeHierarchy();
+            assertEquals(graph.getNbVariants(shapeNode), hierarchy.getNbVariants("Shape", EntityType.INTERFACE));
+            assertEquals(2, hierarchy.getNbVariants("Shape", EntityType.INTERFACE));
+            assertEquals(0, hierarchy.getNbVariants("Rectangle", EntityType.CLASS));
+            assertEquals(graph.relatedTo(shapeNode, polygonNode), hierarchy.isDirectSubtype("Shape", EntityType.INTERFACE, "Polygon", EntityType.INTERFACE));
+            assertEquals(graph.relatedTo(polygonNode, rectangleNode), hierarchy.isDirectSubtype("Polygon", EntityType.INTERFACE, "Rectangle", EntityType.CLASS));
+        });
+    }
+
+}
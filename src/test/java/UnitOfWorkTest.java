@@ -0,0 +1,112 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.UnitOfWork;
+import org.junit.Test;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.graphdb.Transaction;
+
+import static org.junit.Assert.*;
+
+public class UnitOfWorkTest extends Neo4jTest {
+
+    private long countNodesInDatabase() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            long count = graphDatabaseService.getAllNodes().stream().count();
+            tx.success();
+            return count;
+        }
+    }
+
+    @Test
+    public void statementsWithoutTransaction() {
+        runTest(graph -> {
+            try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+                Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+                Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+                graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+                assertEquals(2, countNodesInDatabase());
+                assertEquals(1, graph.getNbVariants(shapeNode));
+            }
+            assertEquals(2, graph.getNbNodes());
+        });
+    }
+
+    @Test
+    public void transactionCommittedWhenClosed() {
+        runTest(graph -> {
+            graph.setCommitInterval(100);
+            try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+                Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+                Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+                graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+                assertEquals(0, countNodesInDatabase());
+                assertEquals(2, graph.getNbNodes());
+                assertEquals(1, graph.getNbVariants(shapeNode));
+            }
+            assertEquals(2, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void transactionCommittedAtInterval() {
+        runTest(graph -> {
+            graph.setCommitInterval(2);
+            try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+                graph.createNode("Shape", EntityType.CLASS);
+                graph.createNode("Rectangle", EntityType.CLASS);
+                assertEquals(0, countNodesInDatabase());
+                graph.createNode("Square", EntityType.CLASS);
+                assertEquals(2, countNodesInDatabase());
+            }
+            assertEquals(3, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void bufferedWritesCommittedWhenClosed() {
+        runTest(10, graph -> {
+            graph.setCommitInterval(100);
+            try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+                graph.createNode("Shape", EntityType.CLASS);
+            }
+            assertEquals(1, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void nestedUnitOfWork() {
+        runTest(graph -> {
+            graph.setCommitInterval(100);
+            try (UnitOfWork unitOfWork = graph.openUnitOfWork()) {
+                try (UnitOfWork nestedUnitOfWork = graph.openUnitOfWork()) {
+                    graph.createNode("Shape", EntityType.CLASS);
+                }
+                assertEquals(0, countNodesInDatabase());
+                assertTrue(graph.getClassNode("Shape").isPresent());
+            }
+            assertEquals(1, countNodesInDatabase());
+        });
+    }
+
+}
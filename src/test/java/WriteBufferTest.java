@@ -0,0 +1,328 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+import neo4j_types.EntityAttribute;
+import neo4j_types.EntityType;
+import neo4j_types.RelationType;
+import neograph.NeoGraph;
+import neograph.PendingNode;
+import org.junit.Test;
+import org.neo4j.driver.v1.types.Node;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class WriteBufferTest extends Neo4jTest {
+
+    private long countNodesInDatabase() {
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            long count = graphDatabaseService.getAllNodes().stream().count();
+            tx.success();
+            return count;
+        }
+    }
+
+    /**
+     * Returns the rows of a query, each one as the list of its values.
+     */
+    private List <String> getRows(String query) {
+        List <String> elements = new ArrayList <>();
+        try (Transaction tx = graphDatabaseService.beginTx()) {
+            Result result = graphDatabaseService.execute(query);
+            while (result.hasNext()) {
+                Map <String, Object> row = result.next();
+                elements.add(row.values().toString());
+            }
+            tx.success();
+        }
+        return elements;
+    }
+
+    @Test
+    public void creationsAreBuffered() {
+        runTest(10, graph -> {
+            Node classNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.createNode("draw", EntityType.METHOD);
+            assertTrue(classNode instanceof PendingNode);
+            assertFalse(((PendingNode) classNode).isResolved());
+            assertEquals(0, countNodesInDatabase());
+            graph.flush();
+            assertTrue(((PendingNode) classNode).isResolved());
+            assertEquals(2, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void fullBufferIsFlushed() {
+        runTest(2, graph -> {
+            graph.createNode("Shape", EntityType.CLASS);
+            assertEquals(0, countNodesInDatabase());
+            graph.createNode("Rectangle", EntityType.CLASS);
+            assertEquals(2, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void readsFlushTheBuffer() {
+        runTest(10, graph -> {
+            Node classNode = graph.createNode("Shape", EntityType.CLASS, EntityAttribute.ABSTRACT);
+            assertTrue(graph.getClassNode("Shape").isPresent());
+            assertEquals(classNode.id(), graph.getClassNode("Shape").get().id());
+            assertTrue(classNode.hasLabel(EntityAttribute.ABSTRACT.toString()));
+            assertEquals("Shape", classNode.get("name").asString());
+        });
+    }
+
+    @Test
+    public void pendingNodeIdFlushesTheBuffer() {
+        runTest(10, graph -> {
+            Node classNode = graph.createNode("Shape", EntityType.CLASS);
+            classNode.id();
+            assertEquals(1, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void mergeMatchesBufferedCreation() {
+        runTest(10, graph -> {
+            Node createdNode = graph.createNode("Shape", EntityType.CLASS);
+            Node mergedNode = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+            assertEquals(createdNode.id(), mergedNode.id());
+            assertTrue(mergedNode.hasLabel(EntityAttribute.ABSTRACT.toString()));
+            assertFalse(mergedNode.hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+            assertEquals(1, graph.getNbNodes());
+        });
+    }
+
+    @Test
+    public void creationAfterMergeOfSameName() {
+        runTest(10, graph -> {
+            Node mergedNode = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            Node createdNode = graph.createNode("Shape", EntityType.CLASS);
+            assertEquals(2, graph.getNbNodes());
+            assertNotEquals(mergedNode.id(), createdNode.id());
+            assertTrue(mergedNode.hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+            assertEquals(mergedNode.id(), graph.getNode("Shape").get().id());
+        });
+    }
+
+    @Test
+    public void mergesOfSameNodeWithDifferentAttributes() {
+        runTest(10, graph -> {
+            Node firstNode = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{});
+            Node secondNode = graph.getOrCreateNode("Shape", EntityType.CLASS, new EntityAttribute[]{}, new EntityAttribute[]{EntityAttribute.ABSTRACT});
+            assertEquals(firstNode.id(), secondNode.id());
+            assertEquals(1, graph.getNbNodes());
+            Node node = graph.getClassNode("Shape").get();
+            assertTrue(node.hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+            assertTrue(node.hasLabel(EntityAttribute.ABSTRACT.toString()));
+        });
+    }
+
+    @Test
+    public void nodesAreCreatedInOrder() {
+        runTest(10, graph -> {
+            Node classNode = graph.createNode("Shape", EntityType.CLASS, EntityAttribute.ABSTRACT);
+            graph.createNode("draw", EntityType.METHOD);
+            Node constructorNode = graph.createNode("Shape", EntityType.CONSTRUCTOR);
+            assertTrue(classNode.id() < constructorNode.id());
+            assertEquals(classNode.id(), graph.getNode("Shape").get().id());
+        });
+    }
+
+    @Test
+    public void linksBetweenBufferedNodes() {
+        runTest(10, graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            Node rectangleNode = graph.getOrCreateNode("Rectangle", EntityType.CLASS);
+            Node squareNode = graph.createNode("Square", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(rectangleNode, squareNode, RelationType.EXTENDS);
+            assertTrue(graph.relatedTo(shapeNode, rectangleNode));
+            assertTrue(graph.relatedTo(rectangleNode, squareNode));
+            assertEquals(2, graph.getNbRelationships());
+            assertEquals(rectangleNode.id(), graph.getSuperclassNode("Square").get().id());
+            assertEquals(1, graph.getNbVariants(shapeNode));
+        });
+    }
+
+    @Test
+    public void relationshipsAreCreatedInOrder() {
+        runTest(10, graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.INTERFACE);
+            Node rectangleNode = graph.createNode("Rectangle", EntityType.CLASS);
+            Node squareNode = graph.createNode("Square", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(rectangleNode, graph.createNode("area", EntityType.METHOD), RelationType.METHOD);
+            graph.linkTwoNodes(rectangleNode, squareNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(squareNode, graph.createNode("area", EntityType.METHOD), RelationType.METHOD);
+            graph.flush();
+            List <String> types = new ArrayList <>();
+            try (Transaction tx = graphDatabaseService.beginTx()) {
+                graphDatabaseService.execute("MATCH ()-[r]->() RETURN type(r) AS type ORDER BY ID(r)").forEachRemaining(row -> types.add((String) row.get("type")));
+                tx.success();
+            }
+            assertEquals(RelationType.IMPLEMENTS.toString(), types.get(0));
+            assertEquals(RelationType.METHOD.toString(), types.get(1));
+            assertEquals(RelationType.EXTENDS.toString(), types.get(2));
+            assertEquals(RelationType.METHOD.toString(), types.get(3));
+        });
+    }
+
+    @Test
+    public void unbatchedWrites() {
+        assertGraphOfWrites(1);
+    }
+
+    @Test
+    public void batchedWritesBuildTheGraphOfUnbatchedWrites() {
+        assertGraphOfWrites(100);
+    }
+
+    /**
+     * Interleaves creations, merges and links, and checks the graph built,
+     * including the lookups returning the first node created with a name.
+     */
+    private void assertGraphOfWrites(int writeBatchSize) {
+        runTest(writeBatchSize, graph -> {
+            Node shapeNode = graph.createNode("shapes.Shape", EntityType.INTERFACE);
+            Node rectangleNode = graph.createNode("shapes.Rectangle", EntityType.CLASS);
+            graph.linkTwoNodes(shapeNode, rectangleNode, RelationType.IMPLEMENTS);
+            graph.linkTwoNodes(rectangleNode, graph.createNode("area", EntityType.METHOD), RelationType.METHOD);
+            Node squareNode = graph.getOrCreateNode("shapes.Square", EntityType.CLASS);
+            Node circleNode = graph.getOrCreateNode("shapes.Circle", EntityType.CLASS);
+            graph.linkTwoNodes(graph.getOrCreateNode("other.Rectangle", EntityType.CLASS, new EntityAttribute[]{EntityAttribute.OUT_OF_SCOPE}, new EntityAttribute[]{}), circleNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(rectangleNode, squareNode, RelationType.EXTENDS);
+            graph.linkTwoNodes(squareNode, graph.createNode("area", EntityType.METHOD), RelationType.METHOD);
+            graph.linkTwoNodes(shapeNode, graph.getOrCreateNode("shapes.Circle", EntityType.CLASS), RelationType.IMPLEMENTS);
+            graph.flush();
+            assertEquals(Arrays.asList("[area]", "[area]", "[other.Rectangle]", "[shapes.Circle]", "[shapes.Rectangle]", "[shapes.Shape]", "[shapes.Square]"),
+                    getRows("MATCH (n) RETURN n.name ORDER BY n.name"));
+            assertEquals(Collections.singletonList("[other.Rectangle]"), getRows("MATCH (n:OUT_OF_SCOPE) RETURN n.name"));
+            assertEquals(Arrays.asList("[other.Rectangle EXTENDS shapes.Circle]", "[shapes.Rectangle EXTENDS shapes.Square]", "[shapes.Rectangle METHOD area]",
+                    "[shapes.Shape IMPLEMENTS shapes.Circle]", "[shapes.Shape IMPLEMENTS shapes.Rectangle]", "[shapes.Square METHOD area]"),
+                    getRows("MATCH (a)-[r]->(b) WITH a.name + ' ' + type(r) + ' ' + b.name AS relationship RETURN relationship ORDER BY relationship"));
+            assertEquals("shapes.Rectangle", graph.getSuperclassNode("shapes.Square").get().get("name").asString());
+            assertEquals("other.Rectangle", graph.getSuperclassNode("shapes.Circle").get().get("name").asString());
+            assertEquals(Collections.singletonList("[shapes.Rectangle]"),
+                    getRows("MATCH (c)-[:METHOD]->(m) WHERE ID(m) = " + graph.getNode("area").get().id() + " RETURN c.name"));
+        });
+    }
+
+    @Test
+    public void creationsOfSeveralThreadsAfterFlushes() {
+        runTest(10, graph -> {
+            Thread thread = new Thread(() -> graph.createNode("Shape", EntityType.CLASS));
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                fail(e.getMessage());
+            }
+            graph.createNode("Rectangle", EntityType.CLASS);
+            graph.flush();
+            assertEquals(2, countNodesInDatabase());
+            graph.createNode("Square", EntityType.CLASS);
+            graph.flush();
+            assertEquals(3, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void pendingNodesInHashSetsAreNotResolved() {
+        runTest(10, graph -> {
+            Node classNode = graph.createNode("Shape", EntityType.CLASS);
+            Set <Node> nodes = new HashSet <>();
+            nodes.add(classNode);
+            assertTrue(nodes.contains(classNode));
+            assertFalse(((PendingNode) classNode).isResolved());
+            assertEquals(0, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void threadsGettingTheSameNodeWithLinksInFlight() {
+        runTest(10, graph -> {
+            int nbMethods = 100;
+            List <Node> shapeNodes = new CopyOnWriteArrayList <>();
+            Runnable writer = () -> {
+                for (int i = 0 ; i < nbMethods ; i++) {
+                    Node shapeNode = graph.getOrCreateNode("shapes.Shape", EntityType.CLASS);
+                    shapeNodes.add(shapeNode);
+                    graph.linkTwoNodes(shapeNode, graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+                    graph.linkTwoNodes(graph.getOrCreateNode("shapes.Shape" + i, EntityType.CLASS), shapeNode, RelationType.EXTENDS);
+                }
+            };
+            Thread firstThread = new Thread(writer);
+            Thread secondThread = new Thread(writer);
+            firstThread.start();
+            secondThread.start();
+            try {
+                firstThread.join();
+                secondThread.join();
+            } catch (InterruptedException e) {
+                fail(e.getMessage());
+            }
+            graph.flush();
+            assertEquals(1, shapeNodes.stream().mapToLong(Node::id).distinct().count());
+            assertEquals(1 + 2 * nbMethods + nbMethods, countNodesInDatabase());
+            assertEquals(2 * nbMethods, getRows("MATCH (:CLASS {name: 'shapes.Shape'})-[r:METHOD]->() RETURN ID(r)").size());
+            assertEquals(2 * nbMethods, getRows("MATCH ()-[r:EXTENDS]->(:CLASS {name: 'shapes.Shape'}) RETURN ID(r)").size());
+        });
+    }
+
+    @Test
+    public void closeFlushesTheBuffer() {
+        runTest(10, graph -> {
+            graph.createNode("Shape", EntityType.CLASS);
+            graph.close();
+            assertEquals(1, countNodesInDatabase());
+        });
+    }
+
+    @Test
+    public void methodVPsWithBufferedWrites() {
+        runTest(100, graph -> {
+            Node shapeNode = graph.createNode("Shape", EntityType.CLASS);
+            graph.linkTwoNodes(graph.getOrCreateNode("Shape", EntityType.CLASS), graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            graph.linkTwoNodes(graph.getOrCreateNode("Shape", EntityType.CLASS), graph.createNode("draw", EntityType.METHOD), RelationType.METHOD);
+            graph.linkTwoNodes(graph.getOrCreateNode("Shape", EntityType.CLASS), graph.createNode("Shape", EntityType.CONSTRUCTOR), RelationType.METHOD);
+            graph.linkTwoNodes(shapeNode, graph.createNode("Shape", EntityType.CONSTRUCTOR), RelationType.METHOD);
+            graph.detectVPsAndVariants();
+            assertEquals(5, graph.getNbNodes());
+            assertEquals(1, graph.getNbMethodVPs());
+            assertEquals(2, graph.getNbMethodVariants());
+            assertEquals(1, graph.getNbConstructorVPs());
+            assertEquals(2, graph.getNbConstructorVariants());
+        });
+    }
+
+}
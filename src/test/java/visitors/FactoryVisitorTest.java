@@ -0,0 +1,75 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package visitors;
+
+import neo4j_types.DesignPatternType;
+import neo4j_types.EntityAttribute;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class FactoryVisitorTest extends VisitorTest {
+
+    private static final String BUILDERS = "package builders;\n" +
+            "public class Builders {\n" +
+            "    public Object create() {\n" +
+            "        return new StringBuilder();\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void returnedTypesAreAddedToTheGraph() throws IOException {
+        visit(getFacts("Builders.java", BUILDERS), new ClassesVisitor(graph), new FactoryVisitor(graph));
+        assertTrue(graph.getClassNode("java.lang.Object").isPresent());
+        assertTrue(graph.getClassNode("java.lang.Object").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertTrue(graph.getClassNode("java.lang.StringBuilder").isPresent());
+        assertFalse(graph.getClassNode("java.lang.StringBuilder").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertFalse(graph.getClassNode("builders.Builders").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertFalse(graph.getClassNode("builders.Builders").get().hasLabel(DesignPatternType.FACTORY.toString()));
+    }
+
+    @Test
+    public void declaringClassOfTheReturnStatementIsAddedToTheGraph() throws IOException {
+        visit(getFacts("Builders.java", BUILDERS), new FactoryVisitor(graph));
+        assertTrue(graph.getClassNode("builders.Builders").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+        assertEquals(3, graph.getNbNodes());
+    }
+
+    @Test
+    public void factoryReturningASubtype() throws IOException {
+        visit(getFacts("ShapeMaker.java", "package shapes;\n" +
+                "interface Shape {}\n" +
+                "class Circle implements Shape {}\n" +
+                "class Square implements Shape {}\n" +
+                "public class ShapeMaker {\n" +
+                "    public Shape create() {\n" +
+                "        return new Circle();\n" +
+                "    }\n" +
+                "}\n"), new ClassesVisitor(graph), new GraphBuilderVisitor(graph), new FactoryVisitor(graph));
+        assertTrue(graph.getClassNode("shapes.ShapeMaker").get().hasLabel(DesignPatternType.FACTORY.toString()));
+        assertFalse(graph.getInterfaceNode("shapes.Shape").get().hasLabel(EntityAttribute.OUT_OF_SCOPE.toString()));
+    }
+
+}
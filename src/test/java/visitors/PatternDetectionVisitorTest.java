@@ -0,0 +1,186 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package visitors;
+
+import facts.FactVisitor;
+import facts.FileFacts;
+import facts.MethodFact;
+import facts.TypeFact;
+import neo4j_types.DesignPatternType;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class PatternDetectionVisitorTest extends VisitorTest {
+
+    private static final String SHAPES = "package shapes;\n" +
+            "interface Shape {\n" +
+            "    double area();\n" +
+            "}\n" +
+            "class Circle implements Shape {\n" +
+            "    public double area() { return 3; }\n" +
+            "}\n" +
+            "class Square implements Shape {\n" +
+            "    public double area() { return 1; }\n" +
+            "}\n" +
+            "abstract class Drawing {\n" +
+            "    abstract void drawShape();\n" +
+            "    void draw() { drawShape(); }\n" +
+            "}\n" +
+            "class ShapeDrawing extends Drawing {\n" +
+            "    void drawShape() {}\n" +
+            "}\n" +
+            "public class Canvas {\n" +
+            "    private Shape shape;\n" +
+            "    public Shape create() {\n" +
+            "        return new Circle();\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void detectorsOfASinglePassLabelThePatterns() throws IOException {
+        visit(getFacts("Canvas.java", SHAPES), new ClassesVisitor(graph), new GraphBuilderVisitor(graph),
+                new PatternDetectionVisitor(graph, new StrategyTemplateDecoratorVisitor(graph), new FactoryVisitor(graph)));
+        assertTrue(graph.getInterfaceNode("shapes.Shape").get().hasLabel(DesignPatternType.STRATEGY.toString()));
+        assertTrue(graph.getClassNode("shapes.Canvas").get().hasLabel(DesignPatternType.FACTORY.toString()));
+        assertTrue(graph.getClassNode("shapes.Drawing").get().hasLabel(DesignPatternType.TEMPLATE.toString()));
+        assertFalse(graph.getClassNode("shapes.Canvas").get().hasLabel(DesignPatternType.STRATEGY.toString()));
+    }
+
+    /**
+     * The graph built with the detectors run in a single pass is the one built with a pass per detector, in the same order,
+     * the nodes being created and labeled in the same order.
+     */
+    @Test
+    public void singlePassBuildsTheGraphOfOnePassPerDetector() throws IOException {
+        List <Path> projects;
+        try (Stream <Path> paths = Files.list(Paths.get("test_projects"))) {
+            projects = paths.filter(path -> Files.isDirectory(path.resolve("src/main/java"))).sorted().collect(Collectors.toList());
+        }
+        assertFalse(projects.isEmpty());
+        for (Path project : projects) {
+            List <FileFacts> facts = new ArrayList <>();
+            try (Stream <Path> paths = Files.walk(project.resolve("src/main/java"))) {
+                for (File file : paths.filter(path -> path.toString().endsWith(".java")).sorted().map(Path::toFile).collect(Collectors.toList())) {
+                    facts.add(FileFacts.of(parser.parse(file, parser.getDecoder().decode(file))));
+                }
+            }
+            assertSinglePassBuildsTheGraphOfOnePassPerDetector(project.toString(), facts);
+        }
+    }
+
+    /**
+     * The factory detector creates the node of the return type of a method under the name given by JDT,
+     * which is wrong here as the type is imported on demand from another package.
+     * The strategy detector must not find this node when resolving the type of the field of a file visited afterwards.
+     */
+    @Test
+    public void nodesCreatedByAFactoryDoNotChangeTheTypesResolvedByTheStrategyDetector() throws IOException {
+        temporaryFolder.newFolder("a");
+        temporaryFolder.newFolder("b");
+        List <FileFacts> facts = Arrays.asList(
+                getFacts("b/Strategy.java", "package b;\npublic interface Strategy {}\n"),
+                getFacts("b/Fast.java", "package b;\npublic class Fast implements Strategy {}\n"),
+                getFacts("b/Slow.java", "package b;\npublic class Slow implements Strategy {}\n"),
+                getFacts("a/Maker.java", "package a;\nimport b.*;\npublic class Maker {\n    public Strategy make() {\n        return new Fast();\n    }\n}\n"),
+                getFacts("a/User.java", "package a;\nimport b.*;\npublic class User {\n    private Strategy strategy;\n}\n"));
+        assertSinglePassBuildsTheGraphOfOnePassPerDetector("on demand imports", facts);
+        visit(facts, new ClassesVisitor(graph), new GraphBuilderVisitor(graph),
+                new PatternDetectionVisitor(graph, new StrategyTemplateDecoratorVisitor(graph), new FactoryVisitor(graph)));
+        assertTrue(graph.getInterfaceNode("b.Strategy").get().hasLabel(DesignPatternType.STRATEGY.toString()));
+    }
+
+    private void assertSinglePassBuildsTheGraphOfOnePassPerDetector(String message, List <FileFacts> facts) throws IOException {
+        GraphStore onePassPerDetector = new InMemoryGraph();
+        visit(facts, new ClassesVisitor(onePassPerDetector), new GraphBuilderVisitor(onePassPerDetector),
+                new StrategyTemplateDecoratorVisitor(onePassPerDetector), new FactoryVisitor(onePassPerDetector));
+        GraphStore singlePass = new InMemoryGraph();
+        visit(facts, new ClassesVisitor(singlePass), new GraphBuilderVisitor(singlePass),
+                new PatternDetectionVisitor(singlePass, new StrategyTemplateDecoratorVisitor(singlePass), new FactoryVisitor(singlePass)));
+        assertEquals(message, getGraphFile(onePassPerDetector), getGraphFile(singlePass));
+    }
+
+    @Test
+    public void visitorsOfASingleTraversalSkipTheirOwnChildren() throws IOException {
+        FileFacts facts = getFacts("Shape.java", "package shapes;\n" +
+                "public abstract class Shape {\n" +
+                "    public abstract double area();\n" +
+                "    public void draw() {\n" +
+                "        class Pen {}\n" +
+                "        area();\n" +
+                "    }\n" +
+                "}\n");
+        List <String> skippingVisitorTypes = new ArrayList <>();
+        List <String> visitingVisitorTypes = new ArrayList <>();
+        List <String> endedTypes = new ArrayList <>();
+        facts.accept(Arrays.asList(new FactVisitor() {
+            @Override
+            public boolean visit(TypeFact type) {
+                skippingVisitorTypes.add(type.getType().getName());
+                return true;
+            }
+
+            @Override
+            public boolean visit(MethodFact method) {
+                return false;
+            }
+
+            @Override
+            public void endVisit(TypeFact type) {
+                endedTypes.add(type.getType().getName());
+            }
+        }, new FactVisitor() {
+            @Override
+            public boolean visit(TypeFact type) {
+                visitingVisitorTypes.add(type.getType().getName());
+                return true;
+            }
+        }));
+        assertEquals(Collections.singletonList("Shape"), skippingVisitorTypes);
+        assertEquals(Arrays.asList("Shape", "Pen"), visitingVisitorTypes);
+        assertEquals(Collections.singletonList("Shape"), endedTypes);
+    }
+
+    private String getGraphFile(GraphStore graph) throws IOException {
+        graph.detectVPsAndVariants();
+        File file = temporaryFolder.newFile();
+        graph.writeGraphFile(file.getPath());
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
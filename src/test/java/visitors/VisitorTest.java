@@ -0,0 +1,75 @@
+/*
+ * This file is part of symfinder.
+ *
+ * symfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * symfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with symfinder. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright 2018-2019 Johann Mortara <johann.mortara@univ-cotedazur.fr>
+ * Copyright 2018-2019 Xhevahire Tërnava <xhevahire.ternava@lip6.fr>
+ * Copyright 2018-2019 Philippe Collet <philippe.collet@univ-cotedazur.fr>
+ */
+
+
+package visitors;
+
+import facts.FileFacts;
+import neograph.GraphStore;
+import neograph.InMemoryGraph;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import parsing.SourceParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs visitors on source files written in a temporary folder, building the graph in memory.
+ */
+public abstract class VisitorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    protected SourceParser parser = new SourceParser(System.getProperty("java.home"));
+    protected GraphStore graph = new InMemoryGraph();
+
+    protected File writeSource(String name, String content) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    protected FileFacts getFacts(String name, String content) throws IOException {
+        File file = writeSource(name, content);
+        return FileFacts.of(parser.parse(file, parser.getDecoder().decode(file)));
+    }
+
+    /**
+     * Runs each visitor on all the files before running the next one, as Symfinder does.
+     */
+    protected void visit(List <FileFacts> files, SymfinderVisitor... visitors) {
+        for (SymfinderVisitor visitor : visitors) {
+            files.forEach(visitor::visitFile);
+            visitor.endVisitFiles();
+        }
+    }
+
+    protected void visit(FileFacts file, SymfinderVisitor... visitors) {
+        visit(Arrays.asList(file), visitors);
+    }
+
+}